@@ -0,0 +1,56 @@
+package model.ai.mcts;
+
+import model.board.BenchmarkBoards;
+import model.board.Board;
+import model.board.utils.PawnColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One random playout to the end of the game, as submitted to the rollout executor and as run inline by the search threads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RolloutBenchmark {
+
+	@Param({"0", "20", "40"})
+	private int plies;
+
+	@Param({"true", "false"})
+	private boolean earlyTermination;
+
+	private Board board;
+	private RolloutKernel kernel;
+
+	@Setup
+	public void setup(){
+		board = BenchmarkBoards.play(plies);
+		kernel = new RolloutKernel(new SplittableRandom(BenchmarkBoards.SEED));
+	}
+
+	@Benchmark
+	public int runJob(){
+		return new MCTSRunJob(board, PawnColor.WHITE, PawnColor.WHITE, earlyTermination, null).run();
+	}
+
+	@Benchmark
+	public PawnColor kernel(){
+		return kernel.play(board, PawnColor.WHITE, earlyTermination, null);
+	}
+}
@@ -0,0 +1,78 @@
+package model.ai.mcts;
+
+import model.board.BenchmarkBoards;
+import model.board.Board;
+import model.board.utils.PawnColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole search of a fixed number of playouts from a fresh tree, in deterministic mode so every invocation does the same work.
+ * The score is in search iterations per second, an iteration being one descent and its leaf rollouts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+	private static final int PLAYOUTS = 20000;
+	private static final int ROLLOUTS_PER_LEAF = 4;
+
+	@Param({"0", "20"})
+	private int plies;
+
+	@Param({"1048576", "0"})
+	private int transpositionTableSize;
+
+	private Board board;
+	private MCTSSettings settings;
+	private SearchLimits limits;
+	private MCTSTree tree;
+
+	@Setup
+	public void setup(){
+		board = BenchmarkBoards.play(plies);
+
+		settings = new MCTSSettings();
+		settings.setRolloutsPerLeaf(ROLLOUTS_PER_LEAF);
+		settings.setTranspositionTableSize(transpositionTableSize);
+		settings.setDeterministic(BenchmarkBoards.SEED, PLAYOUTS);
+
+		// Every invocation must play all of its playouts.
+		limits = new SearchLimits();
+		limits.setEarlyStop(false);
+	}
+
+	/**
+	 * The tree is built out of the measure, its node pool and transposition table are allocated once per search.
+	 */
+	@Setup(Level.Invocation)
+	public void newTree(){
+		tree = new MCTSTree(board, PawnColor.WHITE, settings, new SplittableRandom(BenchmarkBoards.SEED));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PLAYOUTS / ROLLOUTS_PER_LEAF)
+	public List<MoveStatistics> search(){
+		tree.search(limits);
+		return tree.getRootStatistics();
+	}
+}
@@ -0,0 +1,43 @@
+package model.board;
+
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible positions for the benchmarks: the starting board followed by seeded random moves.
+ */
+public final class BenchmarkBoards {
+
+	public static final long SEED = 0x42454E43L;
+
+	private BenchmarkBoards(){}
+
+	/**
+	 * @param plies The number of random moves played from the starting board.
+	 * @return The position reached after the largest even number of plies, so white is to move, which does not end the game.
+	 */
+	@NotNull
+	public static Board play(int plies){
+		SplittableRandom random = new SplittableRandom(SEED);
+		Board board = new Board();
+		Board whiteTurn = board;
+		PawnColor turn = PawnColor.WHITE;
+		int[] buffer = new int[BitBoard.MAX_MOVES];
+
+		for(int i = 0; i < plies && !board.isFinished(); i++){
+			int count = board.getAllPossibleMoves(turn, buffer);
+			board = new Board(board);
+			board.movePawn(buffer[random.nextInt(count)]);
+			turn = turn.getOpposite();
+
+			if(turn == PawnColor.WHITE && !board.isFinished()){
+				whiteTurn = board;
+			}
+		}
+
+		return whiteTurn;
+	}
+}
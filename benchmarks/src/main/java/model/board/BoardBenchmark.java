@@ -0,0 +1,82 @@
+package model.board;
+
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation and move application on positions of the opening, the middle game and the end game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	@Param({"0", "20", "40"})
+	private int plies;
+
+	private Board board;
+	private int[] buffer = new int[BitBoard.MAX_MOVES];
+	private Move move;
+	private int packedMove;
+
+	@Setup
+	public void setup(){
+		board = BenchmarkBoards.play(plies);
+		packedMove = buffer[board.getAllPossibleMoves(PawnColor.WHITE, buffer) / 2];
+		move = Move.of(packedMove);
+	}
+
+	@Benchmark
+	public List<Move> getAllPossibleMoves(){
+		return board.getAllPossibleMoves(PawnColor.WHITE);
+	}
+
+	@Benchmark
+	public int getAllPossibleMovesPacked(){
+		return board.getAllPossibleMoves(PawnColor.WHITE, buffer);
+	}
+
+	@Benchmark
+	public Board copy(){
+		return new Board(board);
+	}
+
+	@Benchmark
+	public Board copyWithMove(){
+		return new Board(board, move);
+	}
+
+	/**
+	 * Includes a copy, so the board is the same at each call: subtract {@link #copy()} to get the move alone.
+	 */
+	@Benchmark
+	public Board movePawn(){
+		Board copy = new Board(board);
+		copy.movePawn(move);
+		return copy;
+	}
+
+	@Benchmark
+	public long makeUnmakeMove(){
+		board.makeMove(packedMove);
+		board.unmakeMove();
+		return board.getHash();
+	}
+}
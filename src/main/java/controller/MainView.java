@@ -8,8 +8,8 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.stage.Stage;
-import model.ai.AI;
 import model.ai.mcts.MCTS;
+import model.ai.mcts.MCTSSettings;
 import model.ai.random.Random;
 import model.board.Board;
 import model.board.Move;
@@ -111,10 +111,10 @@ public class MainView {
 	}
 
 	public void play(){
-		AI aiWhite = new MCTS(PawnColor.WHITE);
-		AI aiBlack = new MCTS(PawnColor.BLACK);
-
+		MCTS aiWhite = new MCTS(PawnColor.WHITE, ponderingSettings());
+		MCTS aiBlack = new MCTS(PawnColor.BLACK, ponderingSettings());
 
+		// Each engine searches the next position while the other one thinks, so the game needs no pause between the moves.
 		while (!board.isFinished()){
 			Move aiMove = aiWhite.getAIMove(board);
 			board.movePawn(aiMove);
@@ -127,13 +127,18 @@ public class MainView {
 			Move aiRandomMove = aiBlack.getAIMove(board);
 			board.movePawn(aiRandomMove);
 			fillPawns();
-			try {
-				Thread.sleep(500);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
 		}
 
+		// The engines keep pondering after their last move otherwise.
+		aiWhite.stopPondering();
+		aiBlack.stopPondering();
+
 		System.err.println("Finished");
 	}
+
+	private static MCTSSettings ponderingSettings(){
+		MCTSSettings settings = new MCTSSettings();
+		settings.setPondering(true);
+		return settings;
+	}
 }
@@ -0,0 +1,234 @@
+package model.ai;
+
+import model.ai.mcts.MCTS;
+import model.ai.mcts.MCTSSettings;
+import model.ai.mcts.SearchLimits;
+import model.ai.random.Random;
+import model.board.Board;
+import model.board.Move;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Headless match between two AIs: games are played in parallel without any display, each player takes white in half of them.
+ * A player which returns no move or an illegal move loses the game.
+ *
+ * Usage: Arena [games] [threads] [moveTimeMillis], plays MCTS against Random.
+ */
+public final class Arena {
+
+	/** Quantile of the normal distribution for the 95% confidence intervals. */
+	private static final double Z = 1.96;
+
+	/**
+	 * One side of the match: a name for the report and a way to build a fresh AI for each game.
+	 */
+	public static final class Player {
+		private final String name;
+		private final Function<PawnColor, AI> factory;
+
+		public Player(@NotNull String name, @NotNull Function<PawnColor, AI> factory){
+			this.name = name;
+			this.factory = factory;
+		}
+
+		@NotNull
+		public String getName() {
+			return name;
+		}
+	}
+
+	/**
+	 * What a player did during a game, or during the whole match once summed.
+	 */
+	public static final class Score {
+		private int games;
+		private int wins;
+		private long moves;
+		private long nanos;
+		private long playouts;
+
+		private synchronized void add(@NotNull Score other){
+			games += other.games;
+			wins += other.wins;
+			moves += other.moves;
+			nanos += other.nanos;
+			playouts += other.playouts;
+		}
+
+		public synchronized int getGames() {
+			return games;
+		}
+
+		public synchronized int getWins() {
+			return wins;
+		}
+
+		public synchronized double getWinRate(){
+			return games == 0 ? 0 : ((double) wins) / games;
+		}
+
+		/**
+		 * @return The bounds of the 95% Wilson score interval of the win rate.
+		 */
+		public synchronized double[] getWinRateInterval(){
+			if(games == 0){
+				return new double[]{0, 1};
+			}
+
+			double rate = getWinRate();
+			double divisor = 1 + Z * Z / games;
+			double center = (rate + Z * Z / (2 * games)) / divisor;
+			double margin = Z * Math.sqrt(rate * (1 - rate) / games + Z * Z / (4.0 * games * games)) / divisor;
+
+			return new double[]{Math.max(0, center - margin), Math.min(1, center + margin)};
+		}
+
+		public synchronized double getMillisPerMove(){
+			return moves == 0 ? 0 : nanos / 1e6 / moves;
+		}
+
+		/**
+		 * @return The playouts per second of thinking time, 0 for an AI which does not run playouts.
+		 */
+		public synchronized double getPlayoutsPerSecond(){
+			return nanos == 0 ? 0 : playouts * 1e9 / nanos;
+		}
+	}
+
+	private final Player first;
+	private final Player second;
+
+	public Arena(@NotNull Player first, @NotNull Player second){
+		this.first = first;
+		this.second = second;
+	}
+
+	/**
+	 * Play the match, the first player takes white in the even games.
+	 * @param threads The number of games played at the same time.
+	 * @return The scores of the first and the second player.
+	 */
+	@NotNull
+	public Score[] play(int games, int threads){
+		if(games < 1 || threads < 1){
+			throw new IllegalArgumentException("At least one game and one thread are needed: " + games + ", " + threads);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Score[]>> futures = new ArrayList<>(games);
+		Score[] scores = {new Score(), new Score()};
+
+		for(int game = 0; game < games; game++){
+			boolean firstIsWhite = game % 2 == 0;
+			futures.add(executor.submit(() -> playGame(firstIsWhite)));
+		}
+
+		for(Future<Score[]> future : futures){
+			try {
+				Score[] gameScores = future.get();
+				scores[0].add(gameScores[0]);
+				scores[1].add(gameScores[1]);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+
+		executor.shutdown();
+		return scores;
+	}
+
+	/**
+	 * @return The scores of the first and the second player for this game.
+	 */
+	@NotNull
+	private Score[] playGame(boolean firstIsWhite){
+		Score[] scores = {new Score(), new Score()};
+		AI[] ais = {
+				first.factory.apply(firstIsWhite ? PawnColor.WHITE : PawnColor.BLACK),
+				second.factory.apply(firstIsWhite ? PawnColor.BLACK : PawnColor.WHITE)
+		};
+		Board board = new Board();
+		int turn = firstIsWhite ? 0 : 1;
+		int winner;
+
+		while(true){
+			AI ai = ais[turn];
+			long start = System.nanoTime();
+			Move move = ai.getAIMove(board);
+			scores[turn].nanos += System.nanoTime() - start;
+			scores[turn].moves++;
+
+			long hash = board.getHash();
+			if(move != null){
+				board.movePawn(move);
+			}
+
+			if(move == null || board.getHash() == hash){ // No move or an illegal one
+				winner = 1 - turn;
+				break;
+			} else if(board.isFinished()){
+				winner = turn;
+				break;
+			}
+
+			turn = 1 - turn;
+		}
+
+		for(int i = 0; i < 2; i++){
+			scores[i].games = 1;
+			scores[i].wins = winner == i ? 1 : 0;
+
+			if(ais[i] instanceof MCTS){
+				MCTS mcts = (MCTS) ais[i];
+				mcts.stopPondering();
+				scores[i].playouts = mcts.getPlayouts();
+			}
+		}
+
+		return scores;
+	}
+
+	private static void print(@NotNull Player player, @NotNull Score score){
+		double[] interval = score.getWinRateInterval();
+
+		System.out.println(String.format("%-10s %5d/%-5d wins  %5.1f%% [%5.1f%%, %5.1f%%]  %8.2f ms/move  %10.0f playouts/s",
+				player.getName(), score.getWins(), score.getGames(),
+				score.getWinRate() * 100, interval[0] * 100, interval[1] * 100,
+				score.getMillisPerMove(), score.getPlayoutsPerSecond()));
+	}
+
+	public static void main(String[] args){
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long moveTimeMillis = args.length > 2 ? Long.parseLong(args[2]) : 100;
+
+		// One core per game: rollouts run on the search thread and the output is kept for the report.
+		Player mcts = new Player("MCTS", color -> {
+			MCTSSettings settings = new MCTSSettings();
+			SearchLimits limits = new SearchLimits();
+			limits.setMoveTimeMillis(moveTimeMillis);
+			settings.setSearchLimits(limits);
+			settings.setRolloutsPerLeaf(1);
+			settings.setVerbose(false);
+			return new MCTS(color, settings);
+		});
+		Player random = new Player("Random", Random::new);
+
+		Arena arena = new Arena(mcts, random);
+		Score[] scores = arena.play(games, threads);
+
+		print(mcts, scores[0]);
+		print(random, scores[1]);
+	}
+}
@@ -0,0 +1,121 @@
+package model.ai.book;
+
+import model.board.Board;
+import model.board.Move;
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import model.board.utils.Zobrist;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only opening book: the move to play in positions searched offline by {@link OpeningBookBuilder}.
+ * The file is memory-mapped and read in place, so opening a book costs nothing whatever its size.
+ * Lookups only use absolute reads of the mapped buffer, so a book can be shared between threads.
+ *
+ * File layout, big-endian: a header of {@link #HEADER_SIZE} bytes (magic, version, slot count, entry count),
+ * then an open addressing hash table of {@link #SLOT_SIZE} bytes slots indexed by the low bits of the position key,
+ * with linear probing. A slot holds the position key (0 for an empty slot), the packed move and its win rate in ten thousandths.
+ */
+public final class OpeningBook {
+
+	static final int MAGIC = 0x424D4342; // "BMCB"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int SLOT_SIZE = 16;
+
+	private final ByteBuffer buffer;
+	private final int mask;
+	private final int size;
+
+	private OpeningBook(@NotNull ByteBuffer buffer){
+		if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION){
+			throw new IllegalArgumentException("Not an opening book");
+		}
+
+		int slots = buffer.getInt(8);
+		if(Integer.bitCount(slots) != 1 || buffer.capacity() < HEADER_SIZE + (long) slots * SLOT_SIZE){
+			throw new IllegalArgumentException("Truncated opening book: " + slots + " slots");
+		}
+
+		this.buffer = buffer;
+		this.mask = slots - 1;
+		this.size = buffer.getInt(12);
+	}
+
+	/**
+	 * Map a book file in memory. The file must not be modified while the book is used.
+	 */
+	@NotNull
+	public static OpeningBook open(@NotNull Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new OpeningBook(buffer);
+		}
+	}
+
+	/**
+	 * @return The number of positions of the book.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * @param turn The color of the player who is able to move a pawn.
+	 * @return The book move of the position, or null if the position is not in the book.
+	 */
+	@Nullable
+	public Move lookup(@NotNull Board board, @NotNull PawnColor turn){
+		int slot = find(Zobrist.key(board.getHash(), turn));
+		if(slot < 0){
+			return null;
+		}
+
+		int move = buffer.getInt(HEADER_SIZE + slot * SLOT_SIZE + 8);
+
+		// A wrong move would lose the game at once, do not trust the file blindly.
+		int[] moves = new int[BitBoard.MAX_MOVES];
+		int count = board.getAllPossibleMoves(turn, moves);
+		for(int i = 0; i < count; i++){
+			if(moves[i] == move){
+				return Move.of(move);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return The win rate of the book move of the position found by the offline search, or -1 if the position is not in the book.
+	 */
+	public double getWinRate(@NotNull Board board, @NotNull PawnColor turn){
+		int slot = find(Zobrist.key(board.getHash(), turn));
+
+		return slot < 0 ? -1 : buffer.getInt(HEADER_SIZE + slot * SLOT_SIZE + 12) / 10000.0;
+	}
+
+	/**
+	 * @return The slot of the key, or -1 if it is not in the table.
+	 */
+	private int find(long key){
+		for(int slot = (int) key & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++){
+			long slotKey = buffer.getLong(HEADER_SIZE + slot * SLOT_SIZE);
+
+			if(slotKey == key){
+				return slot;
+			} else if(slotKey == 0){
+				return -1;
+			}
+		}
+
+		return -1;
+	}
+}
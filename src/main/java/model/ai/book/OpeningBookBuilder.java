@@ -0,0 +1,207 @@
+package model.ai.book;
+
+import model.ai.mcts.MCTS;
+import model.ai.mcts.MCTSSettings;
+import model.ai.mcts.SearchLimits;
+import model.board.Board;
+import model.board.Move;
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import model.board.utils.Zobrist;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Offline builder of an {@link OpeningBook}: long searches of the positions of the first plies of the game.
+ * For each color, the book follows its own book moves and every answer of the opponent,
+ * so any position the engine can meet in the first plies is in the book.
+ *
+ * Usage: OpeningBookBuilder file [plies] [moveTimeMillis] [threads]
+ */
+public final class OpeningBookBuilder {
+
+	private final int plies;
+	private final long moveTimeMillis;
+	private final int threads;
+	private final Map<Long, int[]> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * @param plies The number of plies from the start covered by the book.
+	 * @param moveTimeMillis The search time of each book position.
+	 * @param threads The number of positions searched at the same time.
+	 */
+	public OpeningBookBuilder(int plies, long moveTimeMillis, int threads){
+		if(plies < 1 || moveTimeMillis < 1 || threads < 1){
+			throw new IllegalArgumentException("Plies, move time and threads must be positive: " + plies + ", " + moveTimeMillis + ", " + threads);
+		}
+
+		this.plies = plies;
+		this.moveTimeMillis = moveTimeMillis;
+		this.threads = threads;
+	}
+
+	/**
+	 * Search every book position of both colors, ply after ply.
+	 */
+	public void build(){
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try {
+			for(PawnColor bookColor : PawnColor.values()){
+				Map<Long, Board> frontier = new LinkedHashMap<>();
+				frontier.put(Zobrist.key(new Board().getHash(), PawnColor.WHITE), new Board());
+				PawnColor turn = PawnColor.WHITE;
+
+				for(int ply = 0; ply < plies && !frontier.isEmpty(); ply++){
+					frontier = turn == bookColor ? searchAll(frontier, turn, executor) : expandAll(frontier, turn);
+					turn = turn.getOpposite();
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Search the positions of the book color and add their moves to the book.
+	 * @return The positions reached after the book moves.
+	 */
+	@NotNull
+	private Map<Long, Board> searchAll(@NotNull Map<Long, Board> positions, @NotNull PawnColor turn, @NotNull ExecutorService executor){
+		List<Future<Board>> futures = new ArrayList<>(positions.size());
+
+		for(Map.Entry<Long, Board> position : positions.entrySet()){
+			futures.add(executor.submit(() -> search(position.getKey(), position.getValue(), turn)));
+		}
+
+		Map<Long, Board> next = new LinkedHashMap<>();
+		for(Future<Board> future : futures){
+			try {
+				Board board = future.get();
+				if(board != null && !board.isFinished()){
+					next.put(Zobrist.key(board.getHash(), turn.getOpposite()), board);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+
+		System.out.println(turn + " ply: " + positions.size() + " positions searched, " + entries.size() + " in the book");
+		return next;
+	}
+
+	/**
+	 * @return The position after the book move, or null if there is no move.
+	 */
+	private Board search(long key, @NotNull Board board, @NotNull PawnColor turn){
+		MCTSSettings settings = new MCTSSettings();
+		SearchLimits limits = new SearchLimits();
+		limits.setMoveTimeMillis(moveTimeMillis);
+		limits.setEarlyStop(false);
+		settings.setSearchLimits(limits);
+		settings.setRolloutsPerLeaf(1);
+		settings.setTreeReuse(false);
+		settings.setVerbose(false);
+
+		MCTS mcts = new MCTS(turn, settings);
+		Move move = mcts.getAIMove(board);
+		if(move == null){
+			return null;
+		}
+
+		entries.put(key, new int[]{move.pack(), (int) Math.round(mcts.getWinRate(move) * 10000)});
+		return new Board(board, move);
+	}
+
+	/**
+	 * @return The positions reached by every move of the opponent of the book color.
+	 */
+	@NotNull
+	private Map<Long, Board> expandAll(@NotNull Map<Long, Board> positions, @NotNull PawnColor turn){
+		Map<Long, Board> next = new LinkedHashMap<>();
+		int[] moves = new int[BitBoard.MAX_MOVES];
+
+		for(Board board : positions.values()){
+			int count = board.getAllPossibleMoves(turn, moves);
+
+			for(int i = 0; i < count; i++){
+				Board child = new Board(board);
+				child.movePawn(moves[i]);
+
+				if(!child.isFinished()){
+					next.putIfAbsent(Zobrist.key(child.getHash(), turn.getOpposite()), child);
+				}
+			}
+		}
+
+		return next;
+	}
+
+	/**
+	 * Write the book, with a table twice as large as the number of positions at least.
+	 */
+	public void write(@NotNull Path file) throws IOException {
+		int slots = Integer.highestOneBit(Math.max(8, entries.size() * 2 - 1)) << 1;
+		ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_SIZE + slots * OpeningBook.SLOT_SIZE);
+
+		buffer.putInt(0, OpeningBook.MAGIC);
+		buffer.putInt(4, OpeningBook.VERSION);
+		buffer.putInt(8, slots);
+		buffer.putInt(12, entries.size());
+
+		for(Map.Entry<Long, int[]> entry : entries.entrySet()){
+			long key = entry.getKey();
+			int slot = (int) key & (slots - 1);
+
+			while(buffer.getLong(OpeningBook.HEADER_SIZE + slot * OpeningBook.SLOT_SIZE) != 0){
+				slot = (slot + 1) & (slots - 1);
+			}
+
+			int offset = OpeningBook.HEADER_SIZE + slot * OpeningBook.SLOT_SIZE;
+			buffer.putLong(offset, key);
+			buffer.putInt(offset + 8, entry.getValue()[0]);
+			buffer.putInt(offset + 12, entry.getValue()[1]);
+		}
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+			while(buffer.hasRemaining()){
+				channel.write(buffer);
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1){
+			System.err.println("Usage: OpeningBookBuilder file [plies] [moveTimeMillis] [threads]");
+			return;
+		}
+
+		Path file = Paths.get(args[0]);
+		int plies = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		long moveTimeMillis = args.length > 2 ? Long.parseLong(args[2]) : 10000;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+		OpeningBookBuilder builder = new OpeningBookBuilder(plies, moveTimeMillis, threads);
+		builder.build();
+		builder.write(file);
+
+		System.out.println(builder.entries.size() + " positions written to " + file);
+	}
+}
@@ -7,22 +7,297 @@ import model.board.utils.PawnColor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class MCTS implements AI {
 
 	private PawnColor color;
+	private MCTSSettings settings;
+	private List<MCTSTree> trees = new ArrayList<>();
+	private volatile List<MCTSTree> searchedTrees = new ArrayList<>();
+	private SplittableRandom random;
+	private long playouts = 0;
+	private SearchCoordinator coordinator;
 
 	public MCTS(PawnColor color){
+		this(color, new MCTSSettings());
+	}
+
+	public MCTS(PawnColor color, @NotNull MCTSSettings settings){
 		this.color = color;
+		this.settings = settings;
+		this.random = settings.isDeterministic() ? new SplittableRandom(settings.getSeed()) : new SplittableRandom();
+
+		// Connect the remote workers while the game starts, not during the first search.
+		if(settings.getSearchMode() == SearchMode.DISTRIBUTED && !settings.isDeterministic()){
+			coordinator = new SearchCoordinator(settings.getRemoteWorkers());
+		}
 	}
 
 	@Nullable
 	public Move getAIMove(Board board){
+		stopPondering();
+
+		Move bookMove = settings.getOpeningBook() != null ? settings.getOpeningBook().lookup(board, color) : null;
+		if(bookMove != null){
+			// Nothing was searched for this move, the statistics of the last search are not about it.
+			searchedTrees = Collections.emptyList();
+			return bookMove;
+		}
+
+		int treeCount = settings.getSearchMode() == SearchMode.ROOT_PARALLEL ? settings.getSearchThreads() : 1;
+		prepareTrees(board, treeCount);
+		searchedTrees = new ArrayList<>(trees);
+
+		long startTries = getRootTries();
+		Move move;
+		switch (settings.getSearchMode()){
+			case ROOT_PARALLEL:
+				move = getRootParallelMove();
+				break;
+			case TREE_PARALLEL:
+				move = trees.get(0).getBestMove(settings.getSearchLimits(), settings.getSearchThreads());
+				break;
+			case DISTRIBUTED:
+				move = getDistributedMove(board);
+				break;
+			default:
+				move = trees.get(0).getBestMove(settings.getSearchLimits());
+				break;
+		}
+		playouts += getRootTries() - startTries;
+
+		if(move != null && settings.isPondering() && !settings.isDeterministic()){
+			boolean shared = settings.getSearchMode() == SearchMode.TREE_PARALLEL || settings.getSearchMode() == SearchMode.DISTRIBUTED;
+			int threads = shared ? settings.getSearchThreads() : 1;
+
+			for(MCTSTree mctsTree : trees){
+				mctsTree.startPondering(move, threads);
+			}
+		}
+
+		return move;
+	}
+
+	/**
+	 * Stop the background search started after the last move, if any. The next call to {@link #getAIMove(Board)} does it anyway,
+	 * this is for an engine which will not be asked any move anymore.
+	 */
+	public void stopPondering(){
+		for(MCTSTree mctsTree : trees){
+			mctsTree.stopPondering();
+		}
+	}
+
+	/**
+	 * Close the connections to the remote workers of the {@link SearchMode#DISTRIBUTED} mode, if any.
+	 * They are opened again at the next search.
+	 */
+	public void disconnect(){
+		if(coordinator != null){
+			coordinator.close();
+		}
+	}
+
+	/**
+	 * @return The number of playouts of the searches run for the moves asked so far, pondering and remote workers excluded.
+	 */
+	public long getPlayouts(){
+		return playouts;
+	}
+
+	/**
+	 * Can be called from any thread, while a move is searched or pondered.
+	 * @return The metrics of the running search or of the last one, the ones of all the trees summed in {@link SearchMode#ROOT_PARALLEL} mode.
+	 * None if the last move came from the opening book.
+	 */
+	@NotNull
+	public SearchMetrics getMetrics(){
+		SearchMetrics metrics = null;
+
+		for(MCTSTree mctsTree : searchedTrees){
+			metrics = metrics == null ? mctsTree.getMetrics() : metrics.add(mctsTree.getMetrics());
+		}
+
+		return metrics == null ? SearchMetrics.NONE : metrics;
+	}
+
+	/**
+	 * Can be called while the engine is pondering.
+	 * @return The win rate of the given root move over the local trees of the last search, or 0 if it was not tried.
+	 */
+	public double getWinRate(@NotNull Move move){
+		MoveStatistics total = null;
+
+		for(MCTSTree mctsTree : searchedTrees){
+			for(MoveStatistics statistics : mctsTree.getRootStatistics()){
+				if(statistics.getMove().equals(move)){
+					total = total == null ? statistics : total.add(statistics);
+				}
+			}
+		}
+
+		return total == null ? 0 : total.getScore();
+	}
+
+	/**
+	 * Write the statistics of the trees of the last search, to warm start another engine with {@link MCTSSettings#setSnapshot(TreeSnapshot)}.
+	 * The trees are merged on the fly in key order, the nodes of one position in several trees being summed.
+	 * Can be called while the engine is pondering.
+	 * @param minTries The tries a node needs to be written, at least 1. Higher values give much smaller files.
+	 * @return The number of positions written.
+	 */
+	public int writeSnapshot(@NotNull Path file, int minTries) throws IOException {
+		if(minTries < 1){
+			throw new IllegalArgumentException("At least one try is needed: " + minTries);
+		}
+
+		List<MCTSTree> snapshotTrees = searchedTrees;
+		int[][] nodes = new int[snapshotTrees.size()][];
+		int[] heads = new int[snapshotTrees.size()];
+
+		for(int i = 0; i < nodes.length; i++){
+			nodes[i] = snapshotTrees.get(i).getSnapshotNodes(minTries);
+		}
+
+		TreeSnapshotWriter writer = new TreeSnapshotWriter(file);
+		try(writer){
+			while(true){
+				int next = -1;
+				long nextKey = 0;
+
+				for(int i = 0; i < nodes.length; i++){
+					if(heads[i] < nodes[i].length){
+						long key = snapshotTrees.get(i).getSnapshotKey(nodes[i][heads[i]]);
+
+						if(next < 0 || key < nextKey){
+							next = i;
+							nextKey = key;
+						}
+					}
+				}
+
+				if(next < 0){
+					break;
+				}
+
+				snapshotTrees.get(next).writeSnapshot(nodes[next][heads[next]++], writer);
+			}
+		}
+
+		return writer.getRecords();
+	}
+
+	private long getRootTries(){
+		long tries = 0;
+
+		for(MCTSTree mctsTree : trees){
+			tries += mctsTree.getRootTries();
+		}
+
+		return tries;
+	}
+
+	/**
+	 * Reuse the trees of the previous turn when the board is found in them, build new ones otherwise.
+	 */
+	private void prepareTrees(@NotNull Board board, int treeCount){
+		if(!settings.isTreeReuse() || trees.size() != treeCount){
+			trees.clear();
+		}
+
+		for(int i = 0; i < treeCount; i++){
+			if(i >= trees.size()){
+				trees.add(new MCTSTree(board, color, settings, random.split()));
+			} else if(!trees.get(i).reroot(board)){
+				trees.set(i, new MCTSTree(board, color, settings, random.split()));
+			}
+		}
+	}
+
+	/**
+	 * Search one independent tree per search thread, then sum their root statistics by move.
+	 */
+	@Nullable
+	private Move getRootParallelMove(){
+		List<Future<List<MoveStatistics>>> futures = new ArrayList<>();
+
+		for(MCTSTree mctsTree : trees){
+			futures.add(RolloutPool.searchers().submit(() -> {
+				mctsTree.search(settings.getSearchLimits());
+				return mctsTree.getRootStatistics();
+			}));
+		}
+
+		Map<Move, MoveStatistics> merged = new LinkedHashMap<>();
+
+		for(Future<List<MoveStatistics>> future : futures){
+			try {
+				for(MoveStatistics statistics : future.get()){
+					merged.merge(statistics.getMove(), statistics, MoveStatistics::add);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
+
+		MoveStatistics best = MoveStatistics.best(merged.values());
+
+		if(settings.isVerbose()){
+			System.out.println(getMetrics());
+		}
+		return best == null ? null : best.getMove();
+	}
+
+	/**
+	 * Search the local tree with every search thread while the remote workers search their own trees, then sum the root statistics by move.
+	 * In deterministic mode, the remote workers are left out.
+	 */
+	@Nullable
+	private Move getDistributedMove(@NotNull Board board){
+		SearchLimits limits = settings.getSearchLimits();
+		MCTSTree local = trees.get(0);
+
+		// The workers start searching once the requests are out, their time runs from there.
+		int sent = 0;
+		if(!settings.isDeterministic()){
+			if(coordinator == null){
+				coordinator = new SearchCoordinator(settings.getRemoteWorkers());
+			}
+			sent = coordinator.send(board, color, limits.getTimeBudgetMillis(), limits.getPlayouts());
+		}
+		long deadline = System.nanoTime() + (limits.getTimeBudgetMillis() + settings.getRemoteGraceMillis()) * 1_000_000;
+
+		local.search(limits, settings.getSearchThreads());
+
+		Map<Move, MoveStatistics> merged = new LinkedHashMap<>();
+		for(MoveStatistics statistics : local.getRootStatistics()){
+			merged.merge(statistics.getMove(), statistics, MoveStatistics::add);
+		}
+		// The local root holds every legal move, a move it does not know cannot be trusted.
+		if(sent > 0){
+			for(MoveStatistics statistics : coordinator.collect(deadline)){
+				merged.computeIfPresent(statistics.getMove(), (move, known) -> known.add(statistics));
+			}
+		}
 
-		MCTSTree mctsTree = new MCTSTree(board, color);
+		MoveStatistics best = MoveStatistics.best(merged.values());
 
-		return mctsTree.getBestMove(5000);
+		if(settings.isVerbose()){
+			System.out.println(getMetrics());
+			System.out.println("Remote workers: " + (sent > 0 ? coordinator.getAnswered() : 0) + "/" + settings.getRemoteWorkers().size() + " answered");
+		}
+		return best == null ? null : best.getMove();
 	}
 }
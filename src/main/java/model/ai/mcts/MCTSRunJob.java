@@ -1,49 +1,56 @@
 package model.ai.mcts;
 
+import model.ai.tablebase.Tablebase;
 import model.board.Board;
-import model.board.Move;
 import model.board.utils.PawnColor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
 
-class MCTSRunJob extends Thread {
+/**
+ * One random playout, meant to be submitted to the rollout executor.
+ * Its result is 1 when the game is won by myColor, 0 otherwise.
+ * Each executor thread draws its moves from its own generator, so no seed is shared between threads.
+ */
+class MCTSRunJob implements Callable<Integer> {
+
+	private static final ThreadLocal<RolloutKernel> kernels = ThreadLocal.withInitial(() -> new RolloutKernel(new SplittableRandom()));
 
-	private int score = 0;
 	private Board board;
 	private PawnColor playerTurn;
 	private PawnColor myColor;
-
-	MCTSRunJob(@NotNull Board currentBoard, @NotNull PawnColor currentPlayer, @NotNull PawnColor myColor){
-		super();
-
-		board = new Board(currentBoard);
-		playerTurn = currentPlayer.getOpposite();
+	private boolean earlyTermination;
+	private Tablebase tablebase;
+
+	/**
+	 * @param currentBoard The board to play from, it is not modified by the job.
+	 * @param currentPlayer The color of the player who is able to move a pawn on the board.
+	 * @param myColor The color the score is computed for.
+	 * @param earlyTermination True to stop the playout as soon as its result is certain.
+	 * @param tablebase The tablebase giving the result of the positions with few pawns, or null to play them out.
+	 */
+	MCTSRunJob(@NotNull Board currentBoard, @NotNull PawnColor currentPlayer, @NotNull PawnColor myColor, boolean earlyTermination, @Nullable Tablebase tablebase){
+		board = currentBoard;
+		playerTurn = currentPlayer;
 		this.myColor = myColor;
+		this.earlyTermination = earlyTermination;
+		this.tablebase = tablebase;
 	}
 
-	//***** Getters/Setters *****//
+	//***** Run method *****//
 
-	public int getScore() {
-		return score;
+	/**
+	 * Run the playout on the current thread.
+	 * @return 1 if myColor won the playout, 0 otherwise.
+	 */
+	int run(){
+		return kernels.get().play(board, playerTurn, earlyTermination, tablebase).equals(myColor) ? 1 : 0;
 	}
 
-	//***** Run method *****//
-
 	@Override
-	public void run(){
-		List<Move> allPossibleMoves;
-
-		while(!board.isFinished()){
-			allPossibleMoves = board.getAllPossibleMoves(playerTurn);
-			Move moveToDo = allPossibleMoves.get((int) Math.floor(Math.random() * allPossibleMoves.size()));
-
-			board.movePawn(moveToDo);
-			playerTurn = playerTurn.getOpposite();
-		}
-
-		if(board.colorHasWon(myColor)) {
-			score = 1;
-		}
+	public Integer call(){
+		return run();
 	}
 }
@@ -0,0 +1,351 @@
+package model.ai.mcts;
+
+import model.ai.book.OpeningBook;
+import model.ai.tablebase.Tablebase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Tuning knobs of the MCTS engine. The default values are the ones used by {@link MCTS#MCTS(model.board.utils.PawnColor)}.
+ */
+public class MCTSSettings {
+
+	private int rolloutsPerLeaf = 4;
+	private ExecutorService rolloutExecutor = null;
+	private SearchMode searchMode = SearchMode.SINGLE_TREE;
+	private int searchThreads = Runtime.getRuntime().availableProcessors();
+	private int virtualLoss = 4;
+	private SelectionPolicy selectionPolicy = new UCTPolicy();
+	private MovePrior movePrior = null;
+	private int expansionThreshold = 8;
+	private boolean treeReuse = true;
+	private int nodePoolSize = 1 << 22;
+	private int transpositionTableSize = 1 << 20;
+	private ReplacementScheme replacementScheme = ReplacementScheme.LEAST_TRIED;
+	private boolean earlyTermination = true;
+	private SearchLimits searchLimits = new SearchLimits();
+	private boolean pondering = false;
+	private boolean verbose = true;
+	private OpeningBook openingBook = null;
+	private Tablebase tablebase = null;
+	private TreeSnapshot snapshot = null;
+	private List<InetSocketAddress> remoteWorkers = Collections.emptyList();
+	private long remoteGraceMillis = 200;
+	private boolean deterministic = false;
+	private long seed = 0;
+	private int deterministicPlayouts = 0;
+
+	//***** Getters/Setters *****//
+
+	public int getRolloutsPerLeaf() {
+		return rolloutsPerLeaf;
+	}
+
+	/**
+	 * @param rolloutsPerLeaf The number of playouts run in parallel each time the search reaches a leaf. At least 1.
+	 */
+	public void setRolloutsPerLeaf(int rolloutsPerLeaf) {
+		if(rolloutsPerLeaf < 1){
+			throw new IllegalArgumentException("At least one rollout per leaf is needed: " + rolloutsPerLeaf);
+		}
+		this.rolloutsPerLeaf = rolloutsPerLeaf;
+	}
+
+	/**
+	 * @return The executor running the leaf rollouts, the shared pool sized to the core count by default.
+	 */
+	@NotNull
+	public ExecutorService getRolloutExecutor() {
+		return rolloutExecutor != null ? rolloutExecutor : RolloutPool.common();
+	}
+
+	/**
+	 * @param rolloutExecutor A long-lived executor for the leaf rollouts, or null to use the shared pool.
+	 * It is never shut down by the engine.
+	 */
+	public void setRolloutExecutor(ExecutorService rolloutExecutor) {
+		this.rolloutExecutor = rolloutExecutor;
+	}
+
+	@NotNull
+	public SearchMode getSearchMode() {
+		return searchMode;
+	}
+
+	public void setSearchMode(@NotNull SearchMode searchMode) {
+		this.searchMode = searchMode;
+	}
+
+	public int getSearchThreads() {
+		return searchThreads;
+	}
+
+	/**
+	 * @param searchThreads The number of trees searched at the same time in {@link SearchMode#ROOT_PARALLEL} mode, or descending the tree in
+	 * {@link SearchMode#TREE_PARALLEL} mode. At least 1.
+	 * Setting the rollouts per leaf to 1 keeps each search thread on its own core.
+	 */
+	public void setSearchThreads(int searchThreads) {
+		if(searchThreads < 1){
+			throw new IllegalArgumentException("At least one search thread is needed: " + searchThreads);
+		}
+		this.searchThreads = searchThreads;
+	}
+
+	public int getVirtualLoss() {
+		return virtualLoss;
+	}
+
+	/**
+	 * @param virtualLoss The number of lost tries temporarily added to a node for each thread going through it. At least 0.
+	 */
+	public void setVirtualLoss(int virtualLoss) {
+		if(virtualLoss < 0){
+			throw new IllegalArgumentException("Virtual loss cannot be negative: " + virtualLoss);
+		}
+		this.virtualLoss = virtualLoss;
+	}
+
+	@NotNull
+	public SelectionPolicy getSelectionPolicy() {
+		return selectionPolicy;
+	}
+
+	/**
+	 * @param selectionPolicy The rule choosing the son to go through once a node is fully expanded, UCT by default.
+	 */
+	public void setSelectionPolicy(@NotNull SelectionPolicy selectionPolicy) {
+		this.selectionPolicy = selectionPolicy;
+	}
+
+	@Nullable
+	public MovePrior getMovePrior() {
+		return movePrior;
+	}
+
+	/**
+	 * @param movePrior The source of the priors given to the selection policy, or null for the same prior for every move.
+	 */
+	public void setMovePrior(@Nullable MovePrior movePrior) {
+		this.movePrior = movePrior;
+	}
+
+	public int getExpansionThreshold() {
+		return expansionThreshold;
+	}
+
+	/**
+	 * @param expansionThreshold The number of tries a node needs before its sons get expanded.
+	 * Until then, each visit of the node is evaluated with rollouts. At least 1.
+	 */
+	public void setExpansionThreshold(int expansionThreshold) {
+		if(expansionThreshold < 1){
+			throw new IllegalArgumentException("Expansion threshold must be positive: " + expansionThreshold);
+		}
+		this.expansionThreshold = expansionThreshold;
+	}
+
+	public boolean isTreeReuse() {
+		return treeReuse;
+	}
+
+	/**
+	 * @param treeReuse True to keep the subtree of the position reached after the AI move and the opponent answer,
+	 * false to start every search from an empty tree.
+	 */
+	public void setTreeReuse(boolean treeReuse) {
+		this.treeReuse = treeReuse;
+	}
+
+	public int getNodePoolSize() {
+		return nodePoolSize;
+	}
+
+	/**
+	 * @param nodePoolSize The maximum number of nodes of a tree. The memory is taken as the tree grows.
+	 * Once the pool is full, the leaves are no longer expanded.
+	 */
+	public void setNodePoolSize(int nodePoolSize) {
+		if(nodePoolSize < 1){
+			throw new IllegalArgumentException("Node pool size must be positive: " + nodePoolSize);
+		}
+		this.nodePoolSize = nodePoolSize;
+	}
+
+	public int getTranspositionTableSize() {
+		return transpositionTableSize;
+	}
+
+	/**
+	 * @param transpositionTableSize The maximum number of positions in the transposition table of a tree,
+	 * rounded up to a power of two. 0 disables the table, every move order then gets its own node.
+	 */
+	public void setTranspositionTableSize(int transpositionTableSize) {
+		if(transpositionTableSize < 0 || transpositionTableSize > 1 << 30){
+			throw new IllegalArgumentException("Transposition table size out of range: " + transpositionTableSize);
+		}
+		this.transpositionTableSize = transpositionTableSize;
+	}
+
+	@NotNull
+	public ReplacementScheme getReplacementScheme() {
+		return replacementScheme;
+	}
+
+	public void setReplacementScheme(@NotNull ReplacementScheme replacementScheme) {
+		this.replacementScheme = replacementScheme;
+	}
+
+	public boolean isEarlyTermination() {
+		return earlyTermination;
+	}
+
+	/**
+	 * @param earlyTermination True to stop a playout as soon as one side has a won position:
+	 * a pawn about to reach the last row, an unstoppable threat or an unstoppable runner.
+	 */
+	public void setEarlyTermination(boolean earlyTermination) {
+		this.earlyTermination = earlyTermination;
+	}
+
+	@NotNull
+	public SearchLimits getSearchLimits() {
+		return searchLimits;
+	}
+
+	/**
+	 * @param searchLimits When each search stops, 5 seconds per move by default. Read again at every move.
+	 */
+	public void setSearchLimits(@NotNull SearchLimits searchLimits) {
+		this.searchLimits = searchLimits;
+	}
+
+	public boolean isPondering() {
+		return pondering;
+	}
+
+	/**
+	 * @param pondering True to keep searching the position reached after each move of the engine until it is asked the next one,
+	 * so the time the opponent spends thinking is not lost. Ignored in deterministic mode.
+	 */
+	public void setPondering(boolean pondering) {
+		this.pondering = pondering;
+	}
+
+	public boolean isVerbose() {
+		return verbose;
+	}
+
+	/**
+	 * @param verbose True to print the tries and the win rate of each search on the standard output.
+	 */
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	@Nullable
+	public OpeningBook getOpeningBook() {
+		return openingBook;
+	}
+
+	/**
+	 * @param openingBook The book played without searching in the positions it holds, or null to search every move.
+	 */
+	public void setOpeningBook(@Nullable OpeningBook openingBook) {
+		this.openingBook = openingBook;
+	}
+
+	@Nullable
+	public Tablebase getTablebase() {
+		return tablebase;
+	}
+
+	/**
+	 * @param tablebase The tablebase proving the positions with few pawns in the tree and ending the playouts reaching them,
+	 *                  or null to search them like any other position.
+	 */
+	public void setTablebase(@Nullable Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+
+	@Nullable
+	public TreeSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @param snapshot The statistics of a previous session the new nodes start with, or null to start every node from scratch.
+	 */
+	public void setSnapshot(@Nullable TreeSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	@NotNull
+	public List<InetSocketAddress> getRemoteWorkers() {
+		return remoteWorkers;
+	}
+
+	/**
+	 * @param remoteWorkers The addresses of the {@link SearchWorker}s helping in {@link SearchMode#DISTRIBUTED} mode.
+	 *                      An engine connects to them at its first search.
+	 */
+	public void setRemoteWorkers(@NotNull List<InetSocketAddress> remoteWorkers) {
+		this.remoteWorkers = Collections.unmodifiableList(new ArrayList<>(remoteWorkers));
+	}
+
+	public long getRemoteGraceMillis() {
+		return remoteGraceMillis;
+	}
+
+	/**
+	 * @param remoteGraceMillis The time a remote worker is given after the search time to send its answer, network included.
+	 *                          A worker answering later is left out of the search. At least 0.
+	 */
+	public void setRemoteGraceMillis(long remoteGraceMillis) {
+		if(remoteGraceMillis < 0){
+			throw new IllegalArgumentException("Grace time cannot be negative: " + remoteGraceMillis);
+		}
+		this.remoteGraceMillis = remoteGraceMillis;
+	}
+
+	public boolean isDeterministic() {
+		return deterministic;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getDeterministicPlayouts() {
+		return deterministicPlayouts;
+	}
+
+	/**
+	 * Make the searches reproducible: an engine built with the same seed and asked the same boards plays the same moves
+	 * and builds the same trees. Each tree is then searched by one thread, leaf rollouts included,
+	 * and a search stops after the given number of playouts instead of the time and playout limits.
+	 * Must be set before the engine is built.
+	 * @param playouts The number of playouts of each search. At least 1.
+	 */
+	public void setDeterministic(long seed, int playouts) {
+		if(playouts < 1){
+			throw new IllegalArgumentException("At least one playout is needed: " + playouts);
+		}
+		this.deterministic = true;
+		this.seed = seed;
+		this.deterministicPlayouts = playouts;
+	}
+
+	/**
+	 * Go back to time limited searches with randomly seeded generators.
+	 */
+	public void setNonDeterministic() {
+		this.deterministic = false;
+	}
+}
@@ -1,219 +1,935 @@
 package model.ai.mcts;
 
+import model.ai.tablebase.Tablebase;
 import model.board.Board;
 import model.board.Move;
+import model.board.utils.BitBoard;
 import model.board.utils.PawnColor;
+import model.board.utils.Zobrist;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
 
 /**
  * MCTSTree is the class representing the search tree used in the MCTS algorithm.
  * It has one root which describe the current state of the game.
  * Getting the best move to do involve running dozen of thousands random runs of the game from the root.
+ *
+ * Nodes are ids in a {@link NodePool}, they do not hold any board: each search thread makes and unmakes the moves
+ * of its descents on its own copy of the root board.
+ * Several threads can descend the tree at the same time: nodes are lock-free and use virtual loss to spread the threads.
+ * Positions reached by several move orders share one node through a transposition table, so the tree is in fact a DAG.
+ *
+ * The tree is also a solver: terminal positions are proven wins or losses, and proofs go up the tree
+ * as soon as one son wins for the player to move or all of them lose. Proven nodes are not searched anymore.
+ * With a tablebase, the positions it covers are proven as soon as they are reached.
  */
 class MCTSTree{
 
 	/**
-	 * Internal class of MCTSTree which represent a node in the search tree.
-	 * All the magic happens here.
+	 * Everything a search thread owns: its copy of the root board, a move buffer, its random generator and its rollout kernel.
+	 * It also counts the measures of its iterations, added to the metrics of the search from time to time.
 	 */
-	private class Node{
-		private Board boardState;
-		private PawnColor playerTurn;
-		private Move precedentMove = null;
+	private static final class Worker{
+		private final Board board;
+		private final int[] buffer = new int[BitBoard.MAX_MOVES];
+		private final SplittableRandom random;
+		private final RolloutKernel kernel;
+
+		private int leafDepth;
+		private long iterations;
+		private int maxDepth;
+		private long depths;
+		private long rollouts;
+		private long rolloutPlies;
+		private long iterationNanos;
+		private long rolloutNanos;
+
+		private Worker(@NotNull Board rootBoard, @NotNull SplittableRandom random){
+			this.board = new Board(rootBoard);
+			this.random = random;
+			this.kernel = new RolloutKernel(random.split());
+		}
+
+		private void record(long nanos){
+			iterations++;
+			depths += leafDepth;
+			maxDepth = Math.max(maxDepth, leafDepth);
+			iterationNanos += nanos;
+		}
 
-		private List<Node> sons = new ArrayList<>();
-		private Node parent = null;
+		private void flush(@NotNull Budget budget){
+			budget.iterations.add(iterations);
+			budget.depths.add(depths);
+			budget.maxDepth.accumulateAndGet(maxDepth, Math::max);
+			budget.rollouts.add(rollouts);
+			budget.rolloutPlies.add(rolloutPlies);
+			budget.selectionNanos.add(iterationNanos - rolloutNanos);
+			budget.rolloutNanos.add(rolloutNanos);
+
+			iterations = depths = rollouts = rolloutPlies = iterationNanos = rolloutNanos = 0;
+			maxDepth = 0;
+		}
+	}
 
-		private int nbSuccess = 0;
-		private int nbTries = 0;
-		private int depth = 0;
+	/** The number of moves of the principal variation in the metrics. */
+	private static final int VARIATION_LENGTH = 16;
 
-		/**
-		 * For root node only.
-		 * @param boardState The current board state when the AI needs to get to know which move is the best to do.
-		 */
-		Node(@NotNull Board boardState){
-			this.boardState = boardState;
-			this.playerTurn = myColor;
+	private PawnColor myColor;
+	private MCTSSettings settings;
+	private NodePool pool;
+	private TranspositionTable table;
+	private SplittableRandom random;
+	private Board rootBoard;
+	private int root;
+	private Future<?> pondering;
+	private volatile boolean ponderingStopped;
+	private volatile Budget current;
+
+	MCTSTree(@NotNull Board board, @NotNull PawnColor turnColor){
+		this(board, turnColor, new MCTSSettings(), new SplittableRandom());
+	}
+
+	/**
+	 * @param random The generator the search threads split their own generator from, owned by the tree from now on.
+	 */
+	MCTSTree(@NotNull Board board, @NotNull PawnColor turnColor, @NotNull MCTSSettings settings, @NotNull SplittableRandom random){
+		myColor = turnColor;
+		this.settings = settings;
+		this.random = random;
+		pool = new NodePool(settings.getNodePoolSize());
+		table = createTable(pool);
+		rootBoard = new Board(board);
+		root = pool.allocate(1);
+		pool.setKey(root, Zobrist.key(rootBoard.getHash(), myColor));
+		pool.setPawns(root, rootBoard.getWhiteBitBoard(), rootBoard.getBlackBitBoard());
+		warmStart(root);
+	}
+
+	//***** Descent *****//
+
+	/**
+	 * Play one iteration of the search from a node. The node statistics are updated on the way back.
+	 * Every iteration counts {@link MCTSSettings#getRolloutsPerLeaf()} tries, terminal and proven positions included.
+	 * @param worker The state of the current thread, its board is the board of the node. It is given back unchanged.
+	 * @return The number of tries won by myColor.
+	 */
+	private int playOneTurn(int node, @NotNull Worker worker, @NotNull PawnColor playerTurn){
+		Board board = worker.board;
+		int tries = settings.getRolloutsPerLeaf();
+		int score;
+		int son = NodePool.NONE;
+		worker.leafDepth = board.getUndoSize();
+
+		if(pool.getProof(node) != NodePool.UNPROVEN){
+			score = provenScore(node, tries);
+		} else if(board.isFinished()){
+			pool.setProof(node, board.colorHasWon(myColor) ? NodePool.PROVEN_WIN : NodePool.PROVEN_LOSS);
+			score = provenScore(node, tries);
+		} else if(node != root && proveFromTablebase(node, board, playerTurn)){
+			score = provenScore(node, tries);
+		} else {
+			if(node == root || pool.getTries(node) >= settings.getExpansionThreshold()){
+				son = selectSon(node, worker, playerTurn);
+			}
+
+			if(son == NodePool.NONE && pool.getProof(node) != NodePool.UNPROVEN){ // Every son was proven meanwhile
+				score = provenScore(node, tries);
+			} else if(son == NodePool.NONE){ // Not visited enough, no move left or expanded by another thread: play randomly
+				score = runRollouts(worker, playerTurn);
+			} else {
+				int next = pool.target(son);
+
+				// Play the next turn, other threads see this branch as a loss until it is done.
+				pool.addVirtualLoss(next, settings.getVirtualLoss());
+				board.makeMove(pool.getMove(son));
+				try {
+					score = playOneTurn(next, worker, playerTurn.getOpposite());
+				} finally {
+					board.unmakeMove();
+					pool.addVirtualLoss(next, -settings.getVirtualLoss());
+				}
+
+				if(pool.getProof(next) != NodePool.UNPROVEN){
+					prove(node, playerTurn);
+				}
+			}
 		}
 
-		/**
-		 * For non-root nodes only.
-		 * @param boardState The state of the board when a new node is created.
-		 * @param playerTurn The color of the player who is able to move a pawn.
-		 * @param precedentMove The previous move done, i.e the link between the previous board state and the current board state.
-		 * @param depth The depth of the node in the tree. With the root being 0.
-		 */
-		private Node(@NotNull Board boardState, @NotNull PawnColor playerTurn, @NotNull Move precedentMove, @NotNull Node parent, int depth){
-			this.boardState = boardState;
-			this.playerTurn = playerTurn;
-			this.precedentMove = precedentMove;
+		pool.addResult(node, score, tries);
+
+		return score;
+	}
+
+	/**
+	 * Prove the node if the tablebase covers its position. The root is never proven this way, and a node proven this way
+	 * loses its proof when it becomes the root: its sons are proven one by one instead, so the search still finds the move to play.
+	 * @return True if the node has been proven.
+	 */
+	private boolean proveFromTablebase(int node, @NotNull Board board, @NotNull PawnColor playerTurn){
+		Tablebase tablebase = settings.getTablebase();
+		int result = tablebase == null ? Tablebase.UNKNOWN : tablebase.probe(board, playerTurn);
+
+		if(result == Tablebase.UNKNOWN){
+			return false;
+		}
+
+		boolean won = (result == Tablebase.WIN) == playerTurn.equals(myColor);
+		pool.setProof(node, won ? NodePool.PROVEN_WIN : NodePool.PROVEN_LOSS);
+		return true;
+	}
+
+	private int provenScore(int node, int tries){
+		return pool.getProof(node) == NodePool.PROVEN_WIN ? tries : 0;
+	}
+
+	/**
+	 * Prove the node from its sons if possible: the player to move wins if one of the sons is a win for them,
+	 * and loses if every son is a loss for them.
+	 */
+	private void prove(int node, @NotNull PawnColor playerTurn){
+		int first = pool.getFirstChild(node);
+		if(first < 0){
+			return;
+		}
+
+		int win = playerTurn.equals(myColor) ? NodePool.PROVEN_WIN : NodePool.PROVEN_LOSS;
+		boolean lost = true;
+
+		for(int son = first; son >= 0; son = pool.getSibling(son)){
+			int proof = pool.getProof(pool.target(son));
+
+			if(proof == win){
+				pool.setProof(node, win);
+				return;
+			}
+			lost &= proof == -win;
+		}
+
+		if(lost){
+			pool.setProof(node, -win);
+		}
+	}
+
+	/**
+	 * Expand the node if needed, then choose the son with the highest value for the selection policy, virtual losses included.
+	 * The policy sees the statistics from the point of view of the player of this node.
+	 * Proven sons are skipped: the ones lost for the player are not worth searching, and a won one proves the node itself.
+	 * @return The son to go through, or {@link NodePool#NONE} if the node has no son to offer.
+	 */
+	private int selectSon(int node, @NotNull Worker worker, @NotNull PawnColor playerTurn){
+		int first = pool.getFirstChild(node);
+
+		if(first == NodePool.NONE){
+			expand(node, worker, playerTurn);
+			first = pool.getFirstChild(node);
+		}
+
+		SelectionPolicy policy = settings.getSelectionPolicy();
+		boolean myTurn = playerTurn.equals(myColor);
+		int parentTries = pool.getTries(node);
+		int best = NodePool.NONE;
+		double bestValue = Double.NEGATIVE_INFINITY;
+
+		for(int son = first; son >= 0; son = pool.getSibling(son)){
+			int target = pool.target(son);
+			if(pool.getProof(target) != NodePool.UNPROVEN){
+				continue;
+			}
+
+			int sonTries = pool.getTries(target);
+			int sonWins = myTurn ? pool.getWins(target) : Math.max(0, sonTries - pool.getWins(target));
+			double value = policy.value(parentTries, sonWins, sonTries + pool.getVirtualLoss(target), pool.getPrior(son));
+
+			if(best == NodePool.NONE || value > bestValue){
+				best = son;
+				bestValue = value;
+			}
+		}
 
-			this.parent = parent;
+		if(best == NodePool.NONE){
+			prove(node, playerTurn);
+		}
+
+		return best;
+	}
+
+	/**
+	 * Allocate every son of the node at once, in a random order, unless another thread is already doing it.
+	 * Sons reaching a position known by the transposition table link to its node.
+	 */
+	private void expand(int node, @NotNull Worker worker, @NotNull PawnColor playerTurn){
+		if(!pool.startExpansion(node)){
+			return;
+		}
+
+		Board board = worker.board;
+		int[] buffer = worker.buffer;
+		int count = board.getAllPossibleMoves(playerTurn, buffer);
+		shuffle(worker.random, buffer, count);
 
-			this.depth = depth;
+		int first = count == 0 ? NodePool.NONE : pool.allocate(count);
+		if(first == NodePool.NONE){
+			pool.setFirstChild(node, NodePool.LEAF);
+			return;
 		}
 
-		//***** Getters/Setters *****//
+		PawnColor sonTurn = playerTurn.getOpposite();
+		long whites = board.getWhiteBitBoard();
+		long blacks = board.getBlackBitBoard();
 
-		public void addTries(int tries){
-			nbTries += tries;
-			if(parent != null){
-				parent.addTries(tries);
+		for(int i = 0; i < count; i++){
+			int son = first + i;
+			long key = Zobrist.key(board.hashAfter(buffer[i]), sonTurn);
+			long from = 1L << BitBoard.moveFrom(buffer[i]);
+			long to = 1L << BitBoard.moveTo(buffer[i]);
+			long sonWhites = playerTurn == PawnColor.WHITE ? whites ^ (from | to) : whites & ~to;
+			long sonBlacks = playerTurn == PawnColor.WHITE ? blacks & ~to : blacks ^ (from | to);
+
+			pool.setMove(son, buffer[i]);
+			pool.setKey(son, key);
+			pool.setPawns(son, sonWhites, sonBlacks);
+			warmStart(son);
+
+			if(table != null){
+				int known = table.get(key, sonWhites, sonBlacks);
+
+				if(known == TranspositionTable.NONE){
+					known = table.putIfAbsent(son);
+				}
+				if(known != son){
+					pool.setLink(son, known);
+				}
 			}
 		}
 
-		public List<Node> getSons(){
-			return sons;
+		setPriors(first, count, board, playerTurn);
+		pool.setFirstChild(node, first);
+	}
+
+	/**
+	 * Give the sons of a new block the priors of their moves, with the move prior of the settings, normalized,
+	 * or the same for every move without one. The raw weights are kept in the block until they are normalized.
+	 */
+	private void setPriors(int first, int count, @NotNull Board board, @NotNull PawnColor playerTurn){
+		MovePrior movePrior = settings.getMovePrior();
+		double sum = 0;
+
+		for(int i = 0; i < count; i++){
+			double weight = movePrior == null ? 0 : Math.max(0, movePrior.weight(board, playerTurn, pool.getMove(first + i)));
+			pool.setPrior(first + i, (float) weight);
+			sum += weight;
 		}
 
-		public Move getPrecedentMove() {
-			return precedentMove;
+		for(int i = 0; i < count; i++){
+			pool.setPrior(first + i, sum > 0 ? (float) (pool.getPrior(first + i) / sum) : 1f / count);
 		}
+	}
+
+	/**
+	 * Give a new node the statistics the snapshot of the settings holds for its position, if any.
+	 * Like with the tablebase, the root is never proven this way, and a node proven this way loses its proof
+	 * when it becomes the root, so the search still finds the move to play.
+	 */
+	private void warmStart(int node){
+		TreeSnapshot snapshot = settings.getSnapshot();
+		int record = snapshot == null ? -1 : snapshot.find(pool.getKey(node));
 
-		public double getScore(){
-			return ((double) nbSuccess) / nbTries;
+		if(record < 0){
+			return;
 		}
 
-		//***** *****//
+		pool.setResult(node, snapshot.getWins(record, myColor), snapshot.getTries(record));
 
-		int playOneTurn(){
-			int score = 0;
-			int tries = 1;
+		PawnColor winner = snapshot.getWinner(record);
+		if(winner != null && node != root){
+			pool.setProof(node, winner.equals(myColor) ? NodePool.PROVEN_WIN : NodePool.PROVEN_LOSS);
+		}
+	}
 
-			if(boardState.isFinished() && boardState.colorHasWon(myColor)){
-				score = 1;
-				addTries(tries);
-			} else if(!boardState.isFinished()) {
-				if(depth > maxDepth) { // Case where we need to play randomly
+	/**
+	 * Evaluate the node with random playouts, one on the current thread and the others on the rollout executor.
+	 * In deterministic mode, they all run on the current thread.
+	 * @return The number of playouts won.
+	 */
+	private int runRollouts(@NotNull Worker worker, @NotNull PawnColor playerTurn){
+		long start = System.nanoTime();
+		int rollouts = settings.getRolloutsPerLeaf();
 
-					// Launch four jobs.
-					MCTSRunJob[] jobs = new MCTSRunJob[4];
-					for(int i = 0; i < jobs.length; i++){
-						jobs[i] = new MCTSRunJob(boardState, playerTurn, myColor);
-						jobs[i].start();
-					}
+		int inline = settings.isDeterministic() ? rollouts : 1;
+		List<Future<Integer>> futures = new ArrayList<>(rollouts - inline);
+		ExecutorService executor = settings.getRolloutExecutor();
+		int score = 0;
 
-					// Wait for all jobs to finish and collect score.
-					for (MCTSRunJob job : jobs) {
-						try {
-							job.join();
-							score += job.getScore();
-						} catch (InterruptedException e) {
-							e.printStackTrace();
-						}
-					}
+		for(int i = inline; i < rollouts; i++){
+			futures.add(executor.submit(new MCTSRunJob(worker.board, playerTurn, myColor, settings.isEarlyTermination(), settings.getTablebase())));
+		}
 
-					tries += jobs.length-1;
+		for(int i = 0; i < inline; i++){
+			if(worker.kernel.play(worker.board, playerTurn, settings.isEarlyTermination(), settings.getTablebase()).equals(myColor)){
+				score++;
+			}
+			worker.rollouts++;
+			worker.rolloutPlies += worker.kernel.getLastLength();
+		}
 
-					addTries(tries);
-				} else { // Case where we are in the beginning of the tree
-					List<Move> allPossibleMoves = boardState.getAllPossibleMoves(playerTurn);
-					Node nextNode;
-					Move moveToDo;
+		// Wait for all jobs to finish and collect score.
+		for(Future<Integer> future : futures){
+			try {
+				score += future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+		}
 
-					// Remove the moves already known
-					for(Node son : sons){
-						allPossibleMoves.remove(son.precedentMove);
-					}
+		worker.rolloutNanos += System.nanoTime() - start;
+		return score;
+	}
 
-					if((Math.random() < 0.30 && sons.size() > 0) || allPossibleMoves.size() == 0){ // Exploit
-						int intervalEnlargement = 10;
+	private static void shuffle(@NotNull SplittableRandom random, int[] moves, int count){
+		for(int i = count - 1; i > 0; i--){
+			int j = random.nextInt(i + 1);
+			int move = moves[i];
+			moves[i] = moves[j];
+			moves[j] = move;
+		}
+	}
+
+	//***** Search *****//
 
-						// Choose a number between [0; nbTries]
-						int choice = (int) Math.floor(Math.random() * nbTries * intervalEnlargement);
-						int sumPreviousSuccess = 0;
-						nextNode = sons.get(0);
+	/**
+	 * Make the node holding the given board the new root, so the statistics gathered below it are kept.
+	 * The board is looked for in the current root and in the positions two moves after it,
+	 * i.e. after the move of the AI and the answer of the opponent.
+	 * The nodes which cannot be reached from the new root are then freed.
+	 * @return True if the board was found, false if a new tree is needed.
+	 */
+	boolean reroot(@NotNull Board board){
+		if(rootBoard.equals(board)){
+			return true;
+		}
 
-						// Detect if the choice in within the son range.
-						for(Node son : sons){
-							if(choice < sumPreviousSuccess + son.nbSuccess * intervalEnlargement){
-								nextNode = son;
-								break;
-							} else {
-								sumPreviousSuccess += son.nbSuccess * intervalEnlargement;
-							}
-						}
-					} else { // Explore
-						moveToDo = allPossibleMoves.get((int) Math.floor(Math.random() * allPossibleMoves.size()));
+		Board candidate = new Board(rootBoard);
 
-						nextNode = new Node(new Board(boardState, moveToDo), playerTurn.getOpposite(), moveToDo, this, depth + 1);
+		for(int son = pool.getFirstChild(root); son >= 0; son = pool.getSibling(son)){
+			candidate.makeMove(pool.getMove(son));
 
-						sons.add(nextNode);
-					}
+			for(int grandson = pool.getFirstChild(pool.target(son)); grandson >= 0; grandson = pool.getSibling(grandson)){
+				candidate.makeMove(pool.getMove(grandson));
 
-					// Play the next turn.
-					score = nextNode.playOneTurn();
+				if(candidate.equals(board)){
+					// The metrics of the last search refer to the old pool, which is about to be dropped.
+					current = null;
+					compact(pool.target(grandson));
+					rootBoard = new Board(board);
+					return true;
 				}
+				candidate.unmakeMove();
 			}
+			candidate.unmakeMove();
+		}
+
+		return false;
+	}
 
-			nbSuccess += score;
+	/**
+	 * Explore the tree from the root until one of the limits is reached or the root is proven.
+	 */
+	void search(@NotNull SearchLimits limits){
+		search(limits, 1);
+	}
+
+	/**
+	 * Explore the tree from the root until one of the limits is reached or the root is proven, with several threads descending it at once.
+	 * In deterministic mode, the search runs on the current thread only and stops after the playouts set in the settings.
+	 * @param threads The number of threads descending the tree, the current one included.
+	 */
+	void search(@NotNull SearchLimits limits, int threads){
+		boolean deterministic = settings.isDeterministic();
+		int playouts = deterministic ? settings.getDeterministicPlayouts() : limits.getPlayouts();
+
+		// The first event loads the flight recorder classes, which takes long enough to eat a short time budget.
+		SearchEvent event = new SearchEvent();
+		search(event, new Budget(limits, !deterministic, playouts, NodePool.NONE), deterministic ? 1 : threads);
+	}
 
-			return score;
+	private void search(@NotNull SearchEvent event, @NotNull Budget budget, int threads){
+		event.begin();
+		current = budget;
+
+		List<Future<?>> futures = new ArrayList<>(threads - 1);
+		Worker[] workers = new Worker[threads];
+
+		// Split the generators here, a SplittableRandom cannot be shared between threads.
+		for(int i = 0; i < threads; i++){
+			workers[i] = new Worker(rootBoard, random.split());
 		}
 
-		@Override
-		public String toString(){
-			StringBuilder strBld = new StringBuilder("");
+		for(int i = 1; i < threads; i++){
+			Worker worker = workers[i];
+			futures.add(RolloutPool.searchers().submit(() -> descend(worker, budget)));
+		}
 
-			strBld.append(getScore());
-			strBld.append('\n');
+		descend(workers[0], budget);
 
-			for(Node son : sons){
-				strBld.append("\t-");
-				strBld.append(son.toString());
+		for(Future<?> future : futures){
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
 			}
+		}
 
-			return strBld.toString();
+		budget.end = System.nanoTime();
+		event.end();
+		if(event.shouldCommit()){
+			SearchMetrics metrics = getMetrics();
+			event.pondering = budget.son != NodePool.NONE;
+			event.threads = threads;
+			event.playouts = metrics.getPlayouts();
+			event.playoutsPerSecond = metrics.getPlayoutsPerSecond();
+			event.nodes = metrics.getNodes();
+			event.maxDepth = metrics.getMaxDepth();
+			event.averageDepth = metrics.getAverageDepth();
+			event.averageRolloutLength = metrics.getAverageRolloutLength();
+			event.selectionTime = metrics.getSelectionNanos();
+			event.rolloutTime = metrics.getRolloutNanos();
+			event.winRate = metrics.getWinRate();
+			event.principalVariation = metrics.getPrincipalVariation().toString();
+			event.commit();
 		}
 	}
 
-	private static final int maxDepth = 3;
+	/**
+	 * Keep searching in the background the position reached after the given move, while the opponent is thinking.
+	 * Only the node limit applies, the search goes on until {@link #stopPondering()}.
+	 * Does nothing if the move was not explored.
+	 * @param threads The number of threads descending the tree.
+	 */
+	void startPondering(@NotNull Move move, int threads){
+		int ponderSon = NodePool.NONE;
 
-	private PawnColor myColor;
-	private Node root;
+		for(int son = pool.getFirstChild(root); son >= 0; son = pool.getSibling(son)){
+			if(pool.getMove(son) == move.pack()){
+				ponderSon = son;
+			}
+		}
 
-	MCTSTree(@NotNull Board board, @NotNull PawnColor turnColor){
-		myColor = turnColor;
-		root = new Node(board);
+		if(ponderSon != NodePool.NONE){
+			Budget budget = new Budget(settings.getSearchLimits(), false, 0, ponderSon);
+			ponderingStopped = false;
+			pondering = RolloutPool.searchers().submit(() -> search(new SearchEvent(), budget, threads));
+		}
 	}
 
-	Move getBestMove(long timeBudgetMillis){
+	/**
+	 * Stop the background search started by {@link #startPondering(Move, int)} and wait for its threads.
+	 */
+	void stopPondering(){
+		if(pondering == null){
+			return;
+		}
 
-		// Explore the MCTS Tree
+		ponderingStopped = true;
+		try {
+			pondering.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+		}
+		pondering = null;
+	}
+
+	/**
+	 * Play iterations until the budget is spent. Only the playouts are counted at each iteration,
+	 * the other limits are checked and the metrics are updated every {@link SearchLimits#getCheckInterval()} iterations.
+	 */
+	private void descend(@NotNull Worker worker, @NotNull Budget budget){
+		int interval = budget.limits.getCheckInterval();
+
+		while(!budget.isSpent()){
+			for(int i = 0; i < interval && !budget.isPlayedOut(); i++){
+				long start = System.nanoTime();
+
+				if(budget.son == NodePool.NONE){
+					playOneTurn(root, worker, myColor);
+				} else {
+					playThrough(budget.son, worker);
+				}
+				worker.record(System.nanoTime() - start);
+			}
+			worker.flush(budget);
+		}
+	}
 
-		long start = System.currentTimeMillis();
+	/**
+	 * Play one iteration from the root through the given son only, as if its move was already played.
+	 */
+	private void playThrough(int son, @NotNull Worker worker){
+		int next = pool.target(son);
+		int score;
+
+		worker.board.makeMove(pool.getMove(son));
+		try {
+			score = playOneTurn(next, worker, myColor.getOpposite());
+		} finally {
+			worker.board.unmakeMove();
+		}
 
-		while(System.currentTimeMillis() - start < timeBudgetMillis){
-			root.playOneTurn();
+		if(pool.getProof(next) != NodePool.UNPROVEN){
+			prove(root, myColor);
 		}
+		pool.addResult(root, score, settings.getRolloutsPerLeaf());
+	}
+
+	/**
+	 * @return True if the search proved the game won or lost from the root, nothing is left to search then.
+	 */
+	boolean isSolved(){
+		return pool.getProof(root) != NodePool.UNPROVEN;
+	}
 
-		// Get the results
+	Move getBestMove(@NotNull SearchLimits limits){
+		return getBestMove(limits, 1);
+	}
 
-		List<Node> sons = root.getSons();
+	/**
+	 * @param threads The number of threads descending the tree during the search.
+	 * @return The best move found, or null if the root was not expanded.
+	 */
+	Move getBestMove(@NotNull SearchLimits limits, int threads){
+		search(limits, threads);
 
-		Node bestSon = sons.get(0);
-		double bestScore = bestSon.getScore();
+		MoveStatistics best = MoveStatistics.best(getRootStatistics());
 
-		for(Node son : sons) {
-			if (bestScore < son.getScore()) {
-				bestSon = son;
-				bestScore = son.getScore();
+		if(settings.isVerbose()){
+			System.out.println(getMetrics());
+			if(isSolved()){
+				System.out.println(pool.getProof(root) == NodePool.PROVEN_WIN ? "Proven win" : "Proven loss");
 			}
 		}
+		return best == null ? null : best.getMove();
+	}
+
+	/**
+	 * Can be called while a search runs, from any thread. Its measures are then up to date
+	 * within {@link SearchLimits#getCheckInterval()} iterations of each search thread.
+	 * The pool and the root are read from the budget, which is published at once with them, never from the tree.
+	 * @return The metrics of the running search, or of the last one, or none once the tree was rerooted.
+	 */
+	@NotNull
+	SearchMetrics getMetrics(){
+		Budget budget = current;
+		if(budget == null){
+			return SearchMetrics.NONE;
+		}
+
+		NodePool nodes = budget.pool;
+		long end = budget.end;
+		long elapsed = (end != 0 ? end : System.nanoTime()) - budget.start;
+
+		return new SearchMetrics(end == 0, elapsed, nodes.getTries(budget.from) - budget.startTries, nodes.size(),
+				budget.iterations.sum(), budget.maxDepth.get(), budget.depths.sum(), budget.rollouts.sum(), budget.rolloutPlies.sum(),
+				budget.selectionNanos.sum(), budget.rolloutNanos.sum(),
+				((double) nodes.getWins(budget.root)) / Math.max(1, nodes.getTries(budget.root)), getPrincipalVariation(nodes, budget.root));
+	}
+
+	/**
+	 * @return The most tried son of the root, then its most tried son and so on.
+	 */
+	@NotNull
+	private static List<Move> getPrincipalVariation(@NotNull NodePool pool, int root){
+		List<Move> variation = new ArrayList<>();
+		int node = root;
+
+		while(variation.size() < VARIATION_LENGTH){
+			int best = NodePool.NONE;
+			int bestTries = 0;
+
+			for(int son = pool.getFirstChild(node); son >= 0; son = pool.getSibling(son)){
+				int tries = pool.getTries(pool.target(son));
+
+				if(tries > bestTries){
+					best = son;
+					bestTries = tries;
+				}
+			}
+
+			if(best == NodePool.NONE){
+				break;
+			}
+			variation.add(Move.of(pool.getMove(best)));
+			node = pool.target(best);
+		}
+
+		return variation;
+	}
+
+	/**
+	 * @return The color of the player the tree searches a move for, the player to move at the root.
+	 */
+	@NotNull
+	PawnColor getColor(){
+		return myColor;
+	}
+
+	/**
+	 * @return The number of tries of the root, reused ones included.
+	 */
+	int getRootTries(){
+		return pool.getTries(root);
+	}
+
+	/**
+	 * @return The statistics of every move explored from the root.
+	 */
+	List<MoveStatistics> getRootStatistics(){
+		List<MoveStatistics> statistics = new ArrayList<>();
+
+		for(int son = pool.getFirstChild(root); son >= 0; son = pool.getSibling(son)){
+			int target = pool.target(son);
+			statistics.add(new MoveStatistics(Move.of(pool.getMove(son)), pool.getWins(target), pool.getTries(target), pool.getProof(target)));
+		}
+
+		return statistics;
+	}
+
+	//***** Snapshot *****//
+
+	/**
+	 * Can be called while the tree is searched, the statistics are then the ones of the moment each node is read.
+	 * @return The nodes holding statistics with at least the given tries, sorted by position key.
+	 */
+	int[] getSnapshotNodes(int minTries){
+		return IntStream.range(0, pool.size())
+				.filter(node -> pool.target(node) == node && pool.getTries(node) >= minTries)
+				.boxed()
+				.sorted(Comparator.comparingLong(pool::getKey))
+				.mapToInt(Integer::intValue)
+				.toArray();
+	}
 
-		System.out.println("Tries: "+ root.nbTries);
-		System.out.println("WinRate: "+ root.getScore() * 100);
-		return bestSon.getPrecedentMove();
+	long getSnapshotKey(int node){
+		return pool.getKey(node);
+	}
+
+	/**
+	 * Write the statistics of the node, turned to the point of view of white.
+	 */
+	void writeSnapshot(int node, @NotNull TreeSnapshotWriter writer) throws IOException {
+		int tries = pool.getTries(node);
+		int wins = pool.getWins(node);
+		int proof = pool.getProof(node);
+		PawnColor winner = proof == NodePool.UNPROVEN ? null : proof == NodePool.PROVEN_WIN ? myColor : myColor.getOpposite();
+
+		writer.add(pool.getKey(node), tries, myColor == PawnColor.WHITE ? wins : tries - wins, winner);
+	}
+
+	/**
+	 * The limits of one search, shared by its threads, and its measures. Playouts are counted on the node the descents start from,
+	 * reused tries excluded. The budget keeps the pool and the root of the search, so they are always read together.
+	 */
+	private final class Budget{
+		private final NodePool pool = MCTSTree.this.pool;
+		private final int root = MCTSTree.this.root;
+		private final SearchLimits limits;
+		private final boolean timed;
+		private final long start = System.nanoTime();
+		private volatile long end;
+		private final long deadline;
+		private final int son;
+		private final int from;
+		private final int startTries;
+		private final int playouts;
+
+		private final LongAdder iterations = new LongAdder();
+		private final AtomicInteger maxDepth = new AtomicInteger();
+		private final LongAdder depths = new LongAdder();
+		private final LongAdder rollouts = new LongAdder();
+		private final LongAdder rolloutPlies = new LongAdder();
+		private final LongAdder selectionNanos = new LongAdder();
+		private final LongAdder rolloutNanos = new LongAdder();
+
+		/**
+		 * @param timed False to ignore the time, so the search does not depend on the speed of the machine.
+		 * @param playouts The playout limit, 0 for none.
+		 * @param son The root son every descent goes through when pondering, {@link NodePool#NONE} otherwise.
+		 */
+		private Budget(@NotNull SearchLimits limits, boolean timed, int playouts, int son){
+			this.limits = limits;
+			this.timed = timed;
+			this.deadline = timed ? start + limits.getTimeBudgetMillis() * 1_000_000 : Long.MAX_VALUE;
+			this.son = son;
+			this.from = son == NodePool.NONE ? root : pool.target(son);
+			this.startTries = pool.getTries(from);
+			this.playouts = playouts == 0 ? Integer.MAX_VALUE : playouts;
+		}
+
+		private boolean isPlayedOut(){
+			if(son != NodePool.NONE && ponderingStopped){
+				return true;
+			}
+
+			return pool.getProof(from) != NodePool.UNPROVEN || pool.getTries(from) - startTries >= playouts;
+		}
+
+		private boolean isSpent(){
+			long now = timed ? System.nanoTime() : start;
+
+			if(isPlayedOut() || (timed && now - deadline >= 0)){
+				return true;
+			} else if(limits.getNodes() > 0 && pool.size() >= limits.getNodes()){
+				return true;
+			}
+
+			return limits.isEarlyStop() && son == NodePool.NONE && isDecided(now);
+		}
+
+		/**
+		 * The most tried root move is decided when the tries left cannot fill its lead over the second one.
+		 * Under a time limit, the tries left are estimated from the rate of the search so far.
+		 */
+		private boolean isDecided(long now){
+			int done = pool.getTries(root) - startTries;
+			double left = (double) playouts - done;
+
+			if(timed){
+				left = Math.min(left, (double) done * (deadline - now) / Math.max(1, now - start));
+			}
+
+			int first = 0;
+			int second = 0;
+			for(int son = pool.getFirstChild(root); son >= 0; son = pool.getSibling(son)){
+				int target = pool.target(son);
+				int tries = pool.getTries(target);
+
+				if(pool.getProof(target) == NodePool.PROVEN_LOSS){
+					continue;
+				} else if(tries > first){
+					second = first;
+					first = tries;
+				} else if(tries > second){
+					second = tries;
+				}
+			}
+
+			return done > 0 && first - second > left;
+		}
+	}
+
+	//***** Pool management *****//
+
+	private TranspositionTable createTable(@NotNull NodePool nodePool){
+		if(settings.getTranspositionTableSize() == 0){
+			return null;
+		}
+
+		return new TranspositionTable(settings.getTranspositionTableSize(), settings.getReplacementScheme(),
+				nodePool::getKey, nodePool::getWhites, nodePool::getBlacks, nodePool::getTries);
+	}
+
+	/**
+	 * Copy the nodes reachable from the new root into a fresh pool, and rebuild the transposition table from them.
+	 * A new root proven without sons, by the tablebase or a snapshot, loses its proof so that the search expands it:
+	 * otherwise the search would stop at once, with no move to play.
+	 * Must not be called while a search is running.
+	 */
+	private void compact(int newRoot){
+		NodePool compacted = new NodePool(pool.capacity());
+		int[] copies = new int[pool.size()];
+		Arrays.fill(copies, NodePool.NONE);
+
+		root = copyNode(newRoot, compacted.allocate(1), compacted, copies);
+		if(compacted.getFirstChild(root) == NodePool.NONE){
+			compacted.setProof(root, NodePool.UNPROVEN);
+		}
+		pool = compacted;
+		table = createTable(compacted);
+
+		if(table != null){
+			for(int node = 0; node < compacted.size(); node++){
+				if(compacted.target(node) == node){
+					table.putIfAbsent(node);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copy a node holding statistics and, recursively, its sons. Nodes already copied are linked to instead of copied again.
+	 * @return The id of the copy.
+	 */
+	private int copyNode(int node, int copy, @NotNull NodePool compacted, int[] copies){
+		copies[node] = copy;
+		compacted.setResult(copy, pool.getWins(node), pool.getTries(node));
+		compacted.setKey(copy, pool.getKey(node));
+		compacted.setPawns(copy, pool.getWhites(node), pool.getBlacks(node));
+		compacted.setProof(copy, pool.getProof(node));
+
+		int count = 0;
+		for(int son = pool.getFirstChild(node); son >= 0; son = pool.getSibling(son)){
+			count++;
+		}
+
+		int first = count == 0 ? NodePool.NONE : compacted.allocate(count);
+		if(first == NodePool.NONE){
+			return copy;
+		}
+
+		int sonCopy = first;
+		for(int son = pool.getFirstChild(node); son >= 0; son = pool.getSibling(son), sonCopy++){
+			int target = pool.target(son);
+			compacted.setMove(sonCopy, pool.getMove(son));
+			compacted.setPrior(sonCopy, pool.getPrior(son));
+			compacted.setKey(sonCopy, pool.getKey(target));
+			compacted.setPawns(sonCopy, pool.getWhites(target), pool.getBlacks(target));
+
+			if(copies[target] != NodePool.NONE){
+				compacted.setLink(sonCopy, copies[target]);
+			} else if(target == son){
+				copyNode(son, sonCopy, compacted, copies);
+			} else {
+				compacted.setLink(sonCopy, copyNode(target, compacted.allocate(1), compacted, copies));
+			}
+		}
+
+		compacted.setFirstChild(copy, first);
+		return copy;
 	}
 
 	@Override
 	public String toString(){
-		return root.toString();
+		StringBuilder strBld = new StringBuilder("");
+		appendNode(strBld, root, 0);
+		return strBld.toString();
 	}
 
-}
+	private void appendNode(@NotNull StringBuilder strBld, int node, int depth){
+		strBld.append(((double) pool.getWins(node)) / Math.max(1, pool.getTries(node)));
+		strBld.append('\n');
 
+		for(int son = pool.getFirstChild(node); son >= 0; son = pool.getSibling(son)){
+			for(int i = 0; i <= depth; i++){
+				strBld.append('\t');
+			}
+			strBld.append('-');
+			appendNode(strBld, pool.target(son), depth + 1);
+		}
+	}
+}
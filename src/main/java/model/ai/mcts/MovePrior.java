@@ -0,0 +1,21 @@
+package model.ai.mcts;
+
+import model.board.Board;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Source of the prior probabilities of the moves, given to the {@link SelectionPolicy}: a heuristic or a trained model.
+ * The weights are asked once per move when a node is expanded, then normalized over the moves of the node.
+ */
+@FunctionalInterface
+public interface MovePrior {
+
+	/**
+	 * @param board The position the move is played from.
+	 * @param turn The color of the player who is able to move a pawn.
+	 * @param move A packed move, see {@link model.board.utils.BitBoard#encodeMove(int, int)}.
+	 * @return The weight of the move, at least 0. Moves of a node whose weights are all 0 get the same prior.
+	 */
+	double weight(@NotNull Board board, @NotNull PawnColor turn, int move);
+}
@@ -0,0 +1,91 @@
+package model.ai.mcts;
+
+import model.board.Move;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+
+/**
+ * Search results of one root move: how many playouts went through it, how many of them were won,
+ * and whether the search proved the move to win or lose. Immutable, so it can be handed over between search threads.
+ */
+class MoveStatistics {
+
+	private final Move move;
+	private final int nbSuccess;
+	private final int nbTries;
+	private final int proof;
+
+	MoveStatistics(@NotNull Move move, int nbSuccess, int nbTries){
+		this(move, nbSuccess, nbTries, NodePool.UNPROVEN);
+	}
+
+	/**
+	 * @param proof One of {@link NodePool#UNPROVEN}, {@link NodePool#PROVEN_WIN} and {@link NodePool#PROVEN_LOSS}.
+	 */
+	MoveStatistics(@NotNull Move move, int nbSuccess, int nbTries, int proof){
+		this.move = move;
+		this.nbSuccess = nbSuccess;
+		this.nbTries = nbTries;
+		this.proof = proof;
+	}
+
+	//***** Getters/Setters *****//
+
+	@NotNull
+	Move getMove() {
+		return move;
+	}
+
+	int getNbSuccess() {
+		return nbSuccess;
+	}
+
+	int getNbTries() {
+		return nbTries;
+	}
+
+	int getProof() {
+		return proof;
+	}
+
+	double getScore(){
+		return nbTries == 0 ? 0 : ((double) nbSuccess) / nbTries;
+	}
+
+	//***** *****//
+
+	/**
+	 * @return The statistics of both searches summed, for the same move. A proof found by one of them holds for both.
+	 */
+	@NotNull
+	MoveStatistics add(@NotNull MoveStatistics other){
+		return new MoveStatistics(move, nbSuccess + other.nbSuccess, nbTries + other.nbTries, proof != NodePool.UNPROVEN ? proof : other.proof);
+	}
+
+	/**
+	 * A proven win is always played and a proven loss only when nothing else is left.
+	 * Otherwise the most tried move is the most robust choice, the win rate only breaks ties.
+	 * @return The move to play among the given statistics, or null if there is none.
+	 */
+	@Nullable
+	static MoveStatistics best(@NotNull Collection<MoveStatistics> statistics){
+		MoveStatistics best = null;
+
+		for(MoveStatistics candidate : statistics){
+			if(best == null || best.proof < candidate.proof
+					|| (best.proof == candidate.proof && best.nbTries < candidate.nbTries)
+					|| (best.proof == candidate.proof && best.nbTries == candidate.nbTries && best.getScore() < candidate.getScore())){
+				best = candidate;
+			}
+		}
+
+		return best;
+	}
+
+	@Override
+	public String toString(){
+		return move + ": " + nbSuccess + "/" + nbTries;
+	}
+}
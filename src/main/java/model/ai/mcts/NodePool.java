@@ -0,0 +1,252 @@
+package model.ai.mcts;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Struct-of-arrays storage of a search tree: a node is an int id and each of its fields lives in a primitive array.
+ * The arrays are allocated by chunks of {@link #CHUNK_SIZE} nodes as the tree grows, up to a fixed capacity.
+ *
+ * The sons of a node are allocated in one block and chained through the sibling array.
+ * An entry of the block reached by a position already in the tree links to the node of that position,
+ * which then holds the statistics and the sons for every path reaching it.
+ *
+ * A node also holds its proof: once its result is known for sure, the search stops spending playouts below it.
+ * Its key and its pawns identify its position, the pawns telling two positions apart when their keys collide.
+ *
+ * Counters are updated atomically, and the sons of a node are published with a volatile write,
+ * so several threads can read and grow the pool at the same time.
+ */
+final class NodePool {
+
+	static final int NONE = -1;
+	/** First son of a node whose sons are being allocated by another thread. */
+	static final int EXPANDING = -2;
+	/** First son of a node which cannot be expanded, because it has no move or the pool is full. */
+	static final int LEAF = -3;
+
+	/** Proof of a node whose result is not known for sure yet. */
+	static final int UNPROVEN = 0;
+	/** Proof of a node from which the color of the tree wins whatever the opponent plays. */
+	static final int PROVEN_WIN = 1;
+	/** Proof of a node from which the color of the tree loses whatever it plays. */
+	static final int PROVEN_LOSS = -1;
+
+	private static final int CHUNK_BITS = 16;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private static final VarHandle ints = MethodHandles.arrayElementVarHandle(int[].class);
+
+	private static final class Chunk{
+		private final int[] tries = new int[CHUNK_SIZE];
+		private final int[] wins = new int[CHUNK_SIZE];
+		private final int[] virtualLoss = new int[CHUNK_SIZE];
+		private final int[] proof = new int[CHUNK_SIZE];
+		private final int[] firstChild = new int[CHUNK_SIZE];
+		private final int[] sibling = new int[CHUNK_SIZE];
+		private final int[] move = new int[CHUNK_SIZE];
+		private final float[] prior = new float[CHUNK_SIZE];
+		private final int[] link = new int[CHUNK_SIZE];
+		private final long[] key = new long[CHUNK_SIZE];
+		private final long[] whites = new long[CHUNK_SIZE];
+		private final long[] blacks = new long[CHUNK_SIZE];
+
+		private Chunk(){
+			Arrays.fill(firstChild, NONE);
+			Arrays.fill(sibling, NONE);
+			Arrays.fill(move, NONE);
+			Arrays.fill(link, NONE);
+		}
+	}
+
+	private final AtomicReferenceArray<Chunk> chunks;
+	private final AtomicInteger size = new AtomicInteger();
+	private final int capacity;
+
+	/**
+	 * @param capacity The maximum number of nodes, rounded up to a whole number of chunks.
+	 */
+	NodePool(int capacity){
+		int chunkCount = Math.max(1, (capacity + CHUNK_MASK) >>> CHUNK_BITS);
+
+		this.chunks = new AtomicReferenceArray<>(chunkCount);
+		this.capacity = chunkCount << CHUNK_BITS;
+	}
+
+	//***** Allocation *****//
+
+	/**
+	 * Allocate a block of nodes chained through their sibling field, the last one having no sibling.
+	 * @return The id of the first node of the block, or {@link #NONE} if the pool is full.
+	 */
+	int allocate(int count){
+		int first = size.getAndAdd(count);
+
+		if(first + count > capacity || first < 0){
+			size.getAndAdd(-count);
+			return NONE;
+		}
+
+		for(int id = first; id < first + count; id++){
+			Chunk chunk = chunk(id);
+			chunk.sibling[id & CHUNK_MASK] = id + 1 < first + count ? id + 1 : NONE;
+		}
+
+		return first;
+	}
+
+	int size(){
+		return size.get();
+	}
+
+	int capacity(){
+		return capacity;
+	}
+
+	private Chunk chunk(int id){
+		int index = id >>> CHUNK_BITS;
+		Chunk chunk = chunks.get(index);
+
+		if(chunk == null){
+			chunks.compareAndSet(index, null, new Chunk());
+			chunk = chunks.get(index);
+		}
+
+		return chunk;
+	}
+
+	//***** Statistics *****//
+
+	int getTries(int id){
+		return (int) ints.getVolatile(chunk(id).tries, id & CHUNK_MASK);
+	}
+
+	int getWins(int id){
+		return (int) ints.getVolatile(chunk(id).wins, id & CHUNK_MASK);
+	}
+
+	int getVirtualLoss(int id){
+		return (int) ints.getVolatile(chunk(id).virtualLoss, id & CHUNK_MASK);
+	}
+
+	void addResult(int id, int wins, int tries){
+		Chunk chunk = chunk(id);
+		ints.getAndAdd(chunk.wins, id & CHUNK_MASK, wins);
+		ints.getAndAdd(chunk.tries, id & CHUNK_MASK, tries);
+	}
+
+	void addVirtualLoss(int id, int virtualLoss){
+		ints.getAndAdd(chunk(id).virtualLoss, id & CHUNK_MASK, virtualLoss);
+	}
+
+	/**
+	 * Overwrite the statistics, for nodes not visible to other threads yet.
+	 */
+	void setResult(int id, int wins, int tries){
+		Chunk chunk = chunk(id);
+		chunk.wins[id & CHUNK_MASK] = wins;
+		chunk.tries[id & CHUNK_MASK] = tries;
+	}
+
+	/**
+	 * @return One of {@link #UNPROVEN}, {@link #PROVEN_WIN} and {@link #PROVEN_LOSS}.
+	 */
+	int getProof(int id){
+		return (int) ints.getVolatile(chunk(id).proof, id & CHUNK_MASK);
+	}
+
+	/**
+	 * A proof never changes once set during a search, so concurrent writers always agree and no compare-and-set is needed.
+	 */
+	void setProof(int id, int proof){
+		ints.setVolatile(chunk(id).proof, id & CHUNK_MASK, proof);
+	}
+
+	//***** Structure *****//
+
+	/**
+	 * @return The first son of the node, or one of {@link #NONE}, {@link #EXPANDING} and {@link #LEAF}.
+	 */
+	int getFirstChild(int id){
+		return (int) ints.getVolatile(chunk(id).firstChild, id & CHUNK_MASK);
+	}
+
+	/**
+	 * Claim the expansion of a node for the current thread.
+	 * @return True if the node was not expanded and no other thread is expanding it.
+	 */
+	boolean startExpansion(int id){
+		return ints.compareAndSet(chunk(id).firstChild, id & CHUNK_MASK, NONE, EXPANDING);
+	}
+
+	/**
+	 * Publish the sons of a node, or {@link #LEAF}. Everything written to the sons before is visible to the readers.
+	 */
+	void setFirstChild(int id, int firstChild){
+		ints.setVolatile(chunk(id).firstChild, id & CHUNK_MASK, firstChild);
+	}
+
+	int getSibling(int id){
+		return chunk(id).sibling[id & CHUNK_MASK];
+	}
+
+	/**
+	 * @return The packed move leading to the node from its parent, or {@link #NONE} for a root.
+	 */
+	int getMove(int id){
+		return chunk(id).move[id & CHUNK_MASK];
+	}
+
+	void setMove(int id, int move){
+		chunk(id).move[id & CHUNK_MASK] = move;
+	}
+
+	/**
+	 * @return The prior probability of the move leading to the node from its parent.
+	 */
+	float getPrior(int id){
+		return chunk(id).prior[id & CHUNK_MASK];
+	}
+
+	void setPrior(int id, float prior){
+		chunk(id).prior[id & CHUNK_MASK] = prior;
+	}
+
+	/**
+	 * @return The node holding the statistics and the sons of the given one: itself, or the node of the same position it links to.
+	 */
+	int target(int id){
+		int link = chunk(id).link[id & CHUNK_MASK];
+		return link == NONE ? id : link;
+	}
+
+	void setLink(int id, int target){
+		chunk(id).link[id & CHUNK_MASK] = target;
+	}
+
+	long getKey(int id){
+		return chunk(id).key[id & CHUNK_MASK];
+	}
+
+	void setKey(int id, long key){
+		chunk(id).key[id & CHUNK_MASK] = key;
+	}
+
+	long getWhites(int id){
+		return chunk(id).whites[id & CHUNK_MASK];
+	}
+
+	long getBlacks(int id){
+		return chunk(id).blacks[id & CHUNK_MASK];
+	}
+
+	void setPawns(int id, long whites, long blacks){
+		Chunk chunk = chunk(id);
+		chunk.whites[id & CHUNK_MASK] = whites;
+		chunk.blacks[id & CHUNK_MASK] = blacks;
+	}
+}
@@ -0,0 +1,37 @@
+package model.ai.mcts;
+
+/**
+ * Predictor UCT: the win rate of the son plus an exploration term proportional to the prior of its move,
+ * so moves the {@link MovePrior} favors are searched first. With the default uniform prior, it explores like a flatter UCT.
+ */
+public class PUCTPolicy implements SelectionPolicy {
+
+	public static final double DEFAULT_EXPLORATION = 1.5;
+
+	private final double exploration;
+
+	public PUCTPolicy(){
+		this(DEFAULT_EXPLORATION);
+	}
+
+	/**
+	 * @param exploration The exploration constant, higher values follow the priors longer before trusting the win rates.
+	 */
+	public PUCTPolicy(double exploration){
+		if(exploration < 0){
+			throw new IllegalArgumentException("Exploration constant cannot be negative: " + exploration);
+		}
+		this.exploration = exploration;
+	}
+
+	public double getExploration() {
+		return exploration;
+	}
+
+	@Override
+	public double value(int parentTries, int sonWins, int sonTries, double prior){
+		double winRate = sonTries == 0 ? 0.5 : ((double) sonWins) / sonTries;
+
+		return winRate + exploration * prior * Math.sqrt(Math.max(parentTries, 1)) / (1 + sonTries);
+	}
+}
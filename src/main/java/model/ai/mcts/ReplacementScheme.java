@@ -0,0 +1,13 @@
+package model.ai.mcts;
+
+/**
+ * What the transposition table does when a new position falls in a full bucket.
+ */
+public enum ReplacementScheme {
+	/** The new position always takes the place of one of the bucket entries. */
+	ALWAYS,
+	/** The new position takes the place of the least tried entry of the bucket. */
+	LEAST_TRIED,
+	/** The entries stay, the new position is not stored. */
+	KEEP_EXISTING
+}
@@ -0,0 +1,224 @@
+package model.ai.mcts;
+
+import model.ai.tablebase.Tablebase;
+import model.board.Board;
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays random games to completion directly on the bitboards.
+ * Moves are drawn straight from the target masks, so a playout does not allocate anything on the heap.
+ * With a tablebase, a game stops as soon as it reaches a position the tablebase covers.
+ * A kernel is not thread safe, each rollout thread needs its own, with its own random generator.
+ */
+class RolloutKernel {
+
+	private static final int NO_MOVE = -1;
+	private static final int WIN = -2;
+	private static final int LOSS = -3;
+
+	private final SplittableRandom random;
+	private int length;
+
+	/**
+	 * @param random The generator drawing the moves, owned by the kernel from now on.
+	 */
+	RolloutKernel(@NotNull SplittableRandom random){
+		this.random = random;
+	}
+
+	/**
+	 * Play random moves from the given board until one of the players wins.
+	 * Moves are applied without any legality check since they all come from the move generator.
+	 * @param board The board to start from, left untouched.
+	 * @param playerTurn The color of the player who is able to move a pawn.
+	 * @param earlyTermination True to stop as soon as the result is certain, see {@link #decide(PawnColor, long, long)}.
+	 * @param tablebase The tablebase giving the result of the positions with few pawns, or null to play them out.
+	 * @return The color of the winner.
+	 */
+	@NotNull
+	PawnColor play(@NotNull Board board, @NotNull PawnColor playerTurn, boolean earlyTermination, @Nullable Tablebase tablebase){
+		length = 0;
+
+		if(board.whiteHasWon()){
+			return PawnColor.WHITE;
+		} else if(board.blackHasWon()){
+			return PawnColor.BLACK;
+		}
+
+		long whites = board.getWhiteBitBoard();
+		long blacks = board.getBlackBitBoard();
+		PawnColor turn = playerTurn;
+
+		while(true){
+			int move = tablebase != null ? probe(tablebase, turn, whites, blacks) : NO_MOVE;
+
+			if(move == WIN){
+				return turn;
+			} else if(move == LOSS){
+				return turn.getOpposite();
+			} else if(earlyTermination){
+				move = decide(turn, whites, blacks);
+
+				if(move == WIN){
+					return turn;
+				} else if(move == LOSS){
+					return turn.getOpposite();
+				}
+			}
+
+			if(move == NO_MOVE){
+				move = randomMove(turn, whites, blacks);
+
+				// A player who cannot move anymore loses the game.
+				if(move == NO_MOVE){
+					return turn.getOpposite();
+				}
+			}
+
+			long from = 1L << BitBoard.moveFrom(move);
+			long to = 1L << BitBoard.moveTo(move);
+			length++;
+
+			if(turn == PawnColor.WHITE){
+				whites ^= from | to;
+				blacks &= ~to;
+
+				if(BitBoard.whiteHasWon(whites, blacks)){
+					return PawnColor.WHITE;
+				}
+			} else {
+				blacks ^= from | to;
+				whites &= ~to;
+
+				if(BitBoard.blackHasWon(whites, blacks)){
+					return PawnColor.BLACK;
+				}
+			}
+
+			turn = turn.getOpposite();
+		}
+	}
+
+	/**
+	 * @return The number of moves played by the last playout, before its result was known.
+	 */
+	int getLastLength(){
+		return length;
+	}
+
+	/**
+	 * Draw a move uniformly among the legal ones, straight from the target masks.
+	 * Moves are numbered in the order of {@link BitBoard#generateMoves(long, long, PawnColor, int[])}: left captures, right captures, then advances.
+	 * @return The move, or {@link #NO_MOVE} if the player cannot move.
+	 */
+	private int randomMove(@NotNull PawnColor turn, long whites, long blacks){
+		long empty = ~(whites | blacks);
+		long left, right, forward;
+		int leftDelta, rightDelta, forwardDelta;
+
+		if(turn == PawnColor.WHITE){
+			left = ((whites & ~BitBoard.COLUMN_0) >>> 9) & ~whites;
+			right = ((whites & ~BitBoard.COLUMN_7) >>> 7) & ~whites;
+			forward = (whites >>> 8) & empty;
+			leftDelta = 9;
+			rightDelta = 7;
+			forwardDelta = 8;
+		} else {
+			left = ((blacks & ~BitBoard.COLUMN_0) << 7) & ~blacks;
+			right = ((blacks & ~BitBoard.COLUMN_7) << 9) & ~blacks;
+			forward = (blacks << 8) & empty;
+			leftDelta = -7;
+			rightDelta = -9;
+			forwardDelta = -8;
+		}
+
+		int leftCount = Long.bitCount(left);
+		int rightCount = Long.bitCount(right);
+		int count = leftCount + rightCount + Long.bitCount(forward);
+
+		if(count == 0){
+			return NO_MOVE;
+		}
+
+		int index = random.nextInt(count);
+		if(index < leftCount){
+			return select(left, index, leftDelta);
+		} else if(index < leftCount + rightCount){
+			return select(right, index - leftCount, rightDelta);
+		}
+		return select(forward, index - leftCount - rightCount, forwardDelta);
+	}
+
+	/**
+	 * @return The move reaching the target of the given rank, the lowest square having rank 0.
+	 */
+	private static int select(long targets, int rank, int delta){
+		for(int i = 0; i < rank; i++){
+			targets &= targets - 1;
+		}
+
+		int to = Long.numberOfTrailingZeros(targets);
+		return BitBoard.encodeMove(to + delta, to);
+	}
+
+	/**
+	 * @return {@link #WIN} or {@link #LOSS} for the player to move when the tablebase covers the position, {@link #NO_MOVE} otherwise.
+	 */
+	private static int probe(@NotNull Tablebase tablebase, @NotNull PawnColor turn, long whites, long blacks){
+		switch(tablebase.probe(whites, blacks, turn)){
+			case Tablebase.WIN:
+				return WIN;
+			case Tablebase.LOSS:
+				return LOSS;
+			default:
+				return NO_MOVE;
+		}
+	}
+
+	/**
+	 * Look for a certain result before playing a random move, with mask checks only:
+	 * a pawn about to reach the last row wins, an opponent pawn about to reach it must be captured at once,
+	 * and an unstoppable runner wins when no opponent pawn is closer to its own last row.
+	 * @return {@link #WIN} or {@link #LOSS} for the player to move, the only move saving the game when there is one,
+	 * or {@link #NO_MOVE} when a random move is to be played.
+	 */
+	private int decide(@NotNull PawnColor turn, long whites, long blacks){
+		PawnColor opponent = turn.getOpposite();
+		long own = turn == PawnColor.WHITE ? whites : blacks;
+		long opponents = turn == PawnColor.WHITE ? blacks : whites;
+
+		if((own & BitBoard.penultimateRow(turn)) != 0){
+			return WIN;
+		}
+
+		long threats = opponents & BitBoard.penultimateRow(opponent);
+		if(threats != 0){
+			if((threats & (threats - 1)) != 0){
+				return LOSS;
+			}
+
+			// The pawns able to capture the threat stand where the threat itself would capture.
+			int target = Long.numberOfTrailingZeros(threats);
+			long capturers = BitBoard.attacks(opponent, target) & own;
+			if(capturers == 0){
+				return LOSS;
+			}
+
+			if((capturers & (capturers - 1)) != 0 && random.nextBoolean()){
+				capturers &= capturers - 1;
+			}
+			return BitBoard.encodeMove(Long.numberOfTrailingZeros(capturers), target);
+		}
+
+		if(BitBoard.runnerDistance(turn, whites, blacks) <= BitBoard.distance(opponent, opponents)){
+			return WIN;
+		}
+
+		return NO_MOVE;
+	}
+}
@@ -0,0 +1,68 @@
+package model.ai.mcts;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived executors shared by every search: one running leaf rollouts in parallel, one running the search threads.
+ * Their threads are daemons, so they never prevent the JVM from exiting.
+ */
+final class RolloutPool {
+
+	private static final ExecutorService searchers = Executors.newCachedThreadPool(daemonFactory("mcts-search-"));
+	private static volatile ExecutorService common;
+
+	private RolloutPool(){}
+
+	/**
+	 * @return The shared pool, with one thread per available core. Created on first use.
+	 */
+	@NotNull
+	static ExecutorService common(){
+		ExecutorService pool = common;
+
+		if(pool == null){
+			synchronized (RolloutPool.class){
+				pool = common;
+				if(pool == null){
+					pool = create(Runtime.getRuntime().availableProcessors());
+					common = pool;
+				}
+			}
+		}
+
+		return pool;
+	}
+
+	/**
+	 * @return The pool running the threads descending the trees, it grows to the number of search threads asked for.
+	 */
+	@NotNull
+	static ExecutorService searchers(){
+		return searchers;
+	}
+
+	/**
+	 * @param threads The number of worker threads of the pool.
+	 * @return A new fixed pool made of daemon threads.
+	 */
+	@NotNull
+	static ExecutorService create(int threads){
+		return Executors.newFixedThreadPool(threads, daemonFactory("mcts-rollout-"));
+	}
+
+	@NotNull
+	static ThreadFactory daemonFactory(@NotNull String prefix){
+		AtomicInteger count = new AtomicInteger();
+
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
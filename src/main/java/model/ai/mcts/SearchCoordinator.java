@@ -0,0 +1,224 @@
+package model.ai.mcts;
+
+import model.board.Board;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Client side of a {@link SearchMode#DISTRIBUTED} search: sends the position to every remote {@link SearchWorker},
+ * then collects their root statistics while the local search runs.
+ * Workers are connected in the background, a search only waits {@link #CONNECT_WAIT_MILLIS} in all for the pending connections,
+ * so an unreachable host never delays a move: its worker joins a later search once connected.
+ * A worker which does not answer before the deadline, or whose connection fails, is left out of the search and disconnected,
+ * so a slow or dead worker never delays a move by more than the grace time. It is reconnected {@link #RETRY_MILLIS} after the failure.
+ * Not thread safe, one search at a time.
+ */
+final class SearchCoordinator implements Closeable {
+
+	private static final int CONNECT_TIMEOUT_MILLIS = 500;
+	private static final long CONNECT_WAIT_MILLIS = 50;
+	private static final long RETRY_MILLIS = 5000;
+
+	private static final ExecutorService connector = Executors.newCachedThreadPool(RolloutPool.daemonFactory("mcts-connect-"));
+
+	/**
+	 * An open connection to a worker.
+	 */
+	private static final class Connection {
+		private final Socket socket;
+		private final DataInputStream in;
+		private final DataOutputStream out;
+
+		private Connection(@NotNull Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+	}
+
+	/**
+	 * One remote worker, its connection if any and the connection attempt running in the background if any.
+	 */
+	private static final class Remote {
+		private final InetSocketAddress address;
+		private Connection connection;
+		private Future<Connection> connecting;
+		private long retryAt = System.nanoTime();
+		private boolean searching = false;
+
+		private Remote(@NotNull InetSocketAddress address){
+			this.address = address;
+		}
+	}
+
+	private final List<Remote> remotes = new ArrayList<>();
+	private int answered = 0;
+
+	/**
+	 * @param addresses The addresses of the workers, connected in the background from now on.
+	 */
+	SearchCoordinator(@NotNull List<InetSocketAddress> addresses){
+		for(InetSocketAddress address : addresses){
+			Remote remote = new Remote(address);
+			remote.connecting = connector.submit(() -> connect(address));
+			remotes.add(remote);
+		}
+	}
+
+	/**
+	 * Send the position to every connected worker. Blocks {@link #CONNECT_WAIT_MILLIS} at most, waiting for the pending connections.
+	 * @return The number of workers now searching.
+	 */
+	int send(@NotNull Board board, @NotNull PawnColor turn, long moveTimeMillis, int playouts){
+		long connectDeadline = System.nanoTime() + CONNECT_WAIT_MILLIS * 1_000_000;
+		int sent = 0;
+		answered = 0;
+
+		for(Remote remote : remotes){
+			remote.searching = false;
+
+			if(remote.connection == null && !awaitConnection(remote, connectDeadline)){
+				continue;
+			}
+
+			try {
+				SearchProtocol.writeRequest(remote.connection.out, board, turn, moveTimeMillis, playouts);
+				remote.searching = true;
+				sent++;
+			} catch (IOException e) {
+				fail(remote, e);
+			}
+		}
+
+		return sent;
+	}
+
+	/**
+	 * Start connecting the worker if it is time to retry, then wait for the connection until the deadline at the latest.
+	 * @return True if the worker is connected.
+	 */
+	private boolean awaitConnection(@NotNull Remote remote, long deadline){
+		if(remote.connecting == null){
+			if(System.nanoTime() - remote.retryAt < 0){
+				return false;
+			}
+			remote.connecting = connector.submit(() -> connect(remote.address));
+		}
+
+		try {
+			remote.connection = remote.connecting.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			remote.connecting = null;
+			return true;
+		} catch (TimeoutException e) {
+			return false; // Still connecting, maybe for the next search
+		} catch (ExecutionException e) {
+			remote.connecting = null;
+			fail(remote, e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause()));
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Wait for the answers of the workers searching, until the deadline at the latest.
+	 * @param deadline The {@link System#nanoTime()} after which a worker is given up.
+	 * @return The root statistics of every worker which answered, to be summed by move.
+	 */
+	@NotNull
+	List<MoveStatistics> collect(long deadline){
+		List<MoveStatistics> statistics = new ArrayList<>();
+
+		for(Remote remote : remotes){
+			if(!remote.searching){
+				continue;
+			}
+
+			remote.searching = false;
+			try {
+				long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+				remote.connection.socket.setSoTimeout((int) Math.max(1, Math.min(Integer.MAX_VALUE, remainingMillis)));
+				statistics.addAll(SearchProtocol.readResponse(remote.connection.in));
+				answered++;
+			} catch (SocketTimeoutException e) {
+				// The answer would come in the middle of the next request, the connection cannot be used anymore.
+				fail(remote, new IOException("no answer in time"));
+			} catch (IOException e) {
+				fail(remote, e);
+			}
+		}
+
+		return statistics;
+	}
+
+	/**
+	 * @return The number of workers which answered the last search.
+	 */
+	int getAnswered(){
+		return answered;
+	}
+
+	/**
+	 * Runs on the connector threads.
+	 */
+	@NotNull
+	private static Connection connect(@NotNull InetSocketAddress address) throws IOException {
+		Socket socket = new Socket();
+		try {
+			socket.connect(address, CONNECT_TIMEOUT_MILLIS);
+			socket.setTcpNoDelay(true);
+			return new Connection(socket);
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+	}
+
+	private static void fail(@NotNull Remote remote, @NotNull IOException cause){
+		System.err.println("Search worker " + remote.address + " left out: " + cause.getMessage());
+		disconnect(remote);
+		remote.retryAt = System.nanoTime() + RETRY_MILLIS * 1_000_000;
+	}
+
+	private static void disconnect(@NotNull Remote remote){
+		if(remote.connection != null){
+			try {
+				remote.connection.socket.close();
+			} catch (IOException ignored) {
+				// The connection is given up anyway.
+			}
+		}
+
+		remote.connection = null;
+		remote.searching = false;
+	}
+
+	/**
+	 * Disconnect every worker, the coordinator can still be used and reconnects them at the next search.
+	 */
+	@Override
+	public void close(){
+		for(Remote remote : remotes){
+			disconnect(remote);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package model.ai.mcts;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of one search, committed when the search is over.
+ * Recorded with the other JDK events: java -XX:StartFlightRecording=filename=search.jfr ...
+ */
+@Name("model.ai.mcts.Search")
+@Label("MCTS Search")
+@Category("BreakMCTS")
+@Description("One search of the MCTS engine, pondering included")
+class SearchEvent extends Event {
+
+	@Label("Pondering")
+	boolean pondering;
+
+	@Label("Threads")
+	int threads;
+
+	@Label("Playouts")
+	long playouts;
+
+	@Label("Playouts per Second")
+	double playoutsPerSecond;
+
+	@Label("Nodes")
+	int nodes;
+
+	@Label("Max Depth")
+	int maxDepth;
+
+	@Label("Average Depth")
+	double averageDepth;
+
+	@Label("Average Rollout Length")
+	double averageRolloutLength;
+
+	@Label("Selection Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long selectionTime;
+
+	@Label("Rollout Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long rolloutTime;
+
+	@Label("Win Rate")
+	double winRate;
+
+	@Label("Principal Variation")
+	String principalVariation;
+}
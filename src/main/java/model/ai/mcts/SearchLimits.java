@@ -0,0 +1,139 @@
+package model.ai.mcts;
+
+/**
+ * When a search stops: after a fixed time per move, a number of playouts or a number of nodes, whichever comes first.
+ * With a game clock, the time per move is also cut down to a share of the time left.
+ * The search may stop earlier when the most tried root move cannot be caught up anymore.
+ */
+public class SearchLimits {
+
+	/** Time kept aside on the game clock for everything around the search itself. */
+	private static final long CLOCK_MARGIN_MILLIS = 50;
+
+	private long moveTimeMillis = 5000;
+	private int playouts = 0;
+	private int nodes = 0;
+	private long clockMillis = 0;
+	private long incrementMillis = 0;
+	private int movesToGo = 20;
+	private boolean earlyStop = true;
+	private int checkInterval = 64;
+
+	//***** Getters/Setters *****//
+
+	public long getMoveTimeMillis() {
+		return moveTimeMillis;
+	}
+
+	/**
+	 * @param moveTimeMillis The longest time spent on one move. At least 1.
+	 */
+	public void setMoveTimeMillis(long moveTimeMillis) {
+		if(moveTimeMillis < 1){
+			throw new IllegalArgumentException("Move time must be positive: " + moveTimeMillis);
+		}
+		this.moveTimeMillis = moveTimeMillis;
+	}
+
+	public int getPlayouts() {
+		return playouts;
+	}
+
+	/**
+	 * @param playouts The number of playouts of one search, counted on the root. 0 for no limit.
+	 */
+	public void setPlayouts(int playouts) {
+		if(playouts < 0){
+			throw new IllegalArgumentException("Playout limit cannot be negative: " + playouts);
+		}
+		this.playouts = playouts;
+	}
+
+	public int getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @param nodes The number of nodes of the tree the search stops at, reused ones included. 0 for no limit.
+	 */
+	public void setNodes(int nodes) {
+		if(nodes < 0){
+			throw new IllegalArgumentException("Node limit cannot be negative: " + nodes);
+		}
+		this.nodes = nodes;
+	}
+
+	public long getClockMillis() {
+		return clockMillis;
+	}
+
+	public long getIncrementMillis() {
+		return incrementMillis;
+	}
+
+	/**
+	 * Set the game clock of the engine, to be updated before each move.
+	 * @param clockMillis The time left on the clock of the engine. 0 when the game is not played with a clock.
+	 * @param incrementMillis The time added to the clock after each move. At least 0.
+	 */
+	public void setClock(long clockMillis, long incrementMillis) {
+		if(clockMillis < 0 || incrementMillis < 0){
+			throw new IllegalArgumentException("Clock cannot be negative: " + clockMillis + " + " + incrementMillis);
+		}
+		this.clockMillis = clockMillis;
+		this.incrementMillis = incrementMillis;
+	}
+
+	public int getMovesToGo() {
+		return movesToGo;
+	}
+
+	/**
+	 * @param movesToGo The number of moves the time left on the clock is expected to be shared between. At least 1.
+	 */
+	public void setMovesToGo(int movesToGo) {
+		if(movesToGo < 1){
+			throw new IllegalArgumentException("At least one move to go is needed: " + movesToGo);
+		}
+		this.movesToGo = movesToGo;
+	}
+
+	public boolean isEarlyStop() {
+		return earlyStop;
+	}
+
+	/**
+	 * @param earlyStop True to stop as soon as the most tried root move cannot be overtaken with the budget left.
+	 */
+	public void setEarlyStop(boolean earlyStop) {
+		this.earlyStop = earlyStop;
+	}
+
+	public int getCheckInterval() {
+		return checkInterval;
+	}
+
+	/**
+	 * @param checkInterval The number of iterations each search thread plays between two checks of the limits. At least 1.
+	 */
+	public void setCheckInterval(int checkInterval) {
+		if(checkInterval < 1){
+			throw new IllegalArgumentException("Check interval must be positive: " + checkInterval);
+		}
+		this.checkInterval = checkInterval;
+	}
+
+	//***** *****//
+
+	/**
+	 * @return The time to spend on the current move: the move time, or less if the game clock cannot afford it.
+	 */
+	long getTimeBudgetMillis(){
+		if(clockMillis == 0){
+			return moveTimeMillis;
+		}
+
+		long share = clockMillis / movesToGo + incrementMillis;
+		return Math.max(1, Math.min(moveTimeMillis, Math.min(share, clockMillis - CLOCK_MARGIN_MILLIS)));
+	}
+}
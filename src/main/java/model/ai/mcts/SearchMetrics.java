@@ -0,0 +1,160 @@
+package model.ai.mcts;
+
+import model.board.Move;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshot of the measures of a search, taken while it runs or once it is over.
+ * Depths and rollout lengths are counted on the search threads only, rollouts handed to the rollout executor are not measured.
+ * Immutable, so it can be handed over between threads.
+ */
+public class SearchMetrics {
+
+	static final SearchMetrics NONE = new SearchMetrics(false, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, Collections.<Move>emptyList());
+
+	private final boolean running;
+	private final long elapsedNanos;
+	private final long playouts;
+	private final int nodes;
+	private final long iterations;
+	private final int maxDepth;
+	private final long depths;
+	private final long rollouts;
+	private final long rolloutPlies;
+	private final long selectionNanos;
+	private final long rolloutNanos;
+	private final double winRate;
+	private final List<Move> principalVariation;
+
+	SearchMetrics(boolean running, long elapsedNanos, long playouts, int nodes, long iterations, int maxDepth, long depths,
+				  long rollouts, long rolloutPlies, long selectionNanos, long rolloutNanos, double winRate,
+				  @NotNull List<Move> principalVariation){
+		this.running = running;
+		this.elapsedNanos = elapsedNanos;
+		this.playouts = playouts;
+		this.nodes = nodes;
+		this.iterations = iterations;
+		this.maxDepth = maxDepth;
+		this.depths = depths;
+		this.rollouts = rollouts;
+		this.rolloutPlies = rolloutPlies;
+		this.selectionNanos = selectionNanos;
+		this.rolloutNanos = rolloutNanos;
+		this.winRate = winRate;
+		this.principalVariation = Collections.unmodifiableList(principalVariation);
+	}
+
+	//***** Getters/Setters *****//
+
+	/**
+	 * @return True if the search was still running when the snapshot was taken.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return The playouts of the search, tries of the reused nodes excluded.
+	 */
+	public long getPlayouts() {
+		return playouts;
+	}
+
+	public double getPlayoutsPerSecond(){
+		return elapsedNanos == 0 ? 0 : playouts * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * @return The number of nodes of the tree, reused ones included.
+	 */
+	public int getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return The number of descents from the root.
+	 */
+	public long getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @return The depth of the deepest leaf reached by a descent, in moves from the root.
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public double getAverageDepth(){
+		return iterations == 0 ? 0 : ((double) depths) / iterations;
+	}
+
+	/**
+	 * @return The average number of moves of a playout.
+	 */
+	public double getAverageRolloutLength(){
+		return rollouts == 0 ? 0 : ((double) rolloutPlies) / rollouts;
+	}
+
+	/**
+	 * @return The time spent by all the search threads descending the tree, expanding it and updating it.
+	 */
+	public long getSelectionNanos() {
+		return selectionNanos;
+	}
+
+	/**
+	 * @return The time spent by all the search threads running or waiting for rollouts.
+	 */
+	public long getRolloutNanos() {
+		return rolloutNanos;
+	}
+
+	/**
+	 * @return The win rate of the root for the color of the engine, between 0 and 1.
+	 */
+	public double getWinRate() {
+		return winRate;
+	}
+
+	/**
+	 * @return The most tried move from the root, then the most tried answer and so on.
+	 */
+	@NotNull
+	public List<Move> getPrincipalVariation() {
+		return principalVariation;
+	}
+
+	//***** *****//
+
+	/**
+	 * @return The measures of both searches summed, for searches run side by side. The principal variation is the one of this search.
+	 */
+	@NotNull
+	SearchMetrics add(@NotNull SearchMetrics other){
+		long totalPlayouts = playouts + other.playouts;
+		double totalWinRate = totalPlayouts == 0 ? 0 : (winRate * playouts + other.winRate * other.playouts) / totalPlayouts;
+
+		return new SearchMetrics(running || other.running, Math.max(elapsedNanos, other.elapsedNanos), totalPlayouts,
+				nodes + other.nodes, iterations + other.iterations, Math.max(maxDepth, other.maxDepth), depths + other.depths,
+				rollouts + other.rollouts, rolloutPlies + other.rolloutPlies, selectionNanos + other.selectionNanos,
+				rolloutNanos + other.rolloutNanos, totalWinRate, principalVariation);
+	}
+
+	@Override
+	public String toString(){
+		return "Tries: " + playouts + " (" + Math.round(getPlayoutsPerSecond()) + "/s)\n"
+				+ "WinRate: " + winRate * 100 + "\n"
+				+ "Nodes: " + nodes + ", depth: " + String.format("%.1f", getAverageDepth()) + " (max " + maxDepth + ")"
+				+ ", rollout length: " + String.format("%.1f", getAverageRolloutLength()) + "\n"
+				+ "Selection: " + selectionNanos / 1_000_000 + " ms, rollouts: " + rolloutNanos / 1_000_000 + " ms\n"
+				+ "PV: " + principalVariation;
+	}
+}
@@ -0,0 +1,18 @@
+package model.ai.mcts;
+
+/**
+ * How the MCTS engine spreads one search over several threads.
+ */
+public enum SearchMode {
+	/** One tree, descended by the calling thread. Only leaf rollouts run in parallel. */
+	SINGLE_TREE,
+	/** Several independent trees built from the same board, their root statistics are summed by move at the end. */
+	ROOT_PARALLEL,
+	/** One shared tree, descended by all the search threads at once. */
+	TREE_PARALLEL,
+	/**
+	 * One shared tree searched like {@link #TREE_PARALLEL}, plus one tree on each remote worker of the settings,
+	 * see {@link SearchWorker}. Their root statistics are summed by move at the end.
+	 */
+	DISTRIBUTED
+}
@@ -0,0 +1,130 @@
+package model.ai.mcts;
+
+import model.board.Board;
+import model.board.Move;
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary wire format between a {@link SearchCoordinator} and its {@link SearchWorker}s, big-endian through data streams.
+ * Each message starts with a magic number and a version.
+ * A request holds the white pawns, the black pawns, the player to move, the search time in milliseconds and the playout limit.
+ * A response holds the number of root moves, then for each of them its packed move, wins, tries and proof,
+ * seen from the player to move of the request.
+ */
+final class SearchProtocol {
+
+	static final int MAGIC = 0x424D4344; // "BMCD"
+	static final int VERSION = 1;
+
+	/**
+	 * A decoded search request.
+	 */
+	static final class Request {
+		final Board board;
+		final PawnColor turn;
+		final long moveTimeMillis;
+		final int playouts;
+
+		private Request(@NotNull Board board, @NotNull PawnColor turn, long moveTimeMillis, int playouts){
+			this.board = board;
+			this.turn = turn;
+			this.moveTimeMillis = moveTimeMillis;
+			this.playouts = playouts;
+		}
+	}
+
+	private SearchProtocol(){}
+
+	static void writeRequest(@NotNull DataOutputStream out, @NotNull Board board, @NotNull PawnColor turn, long moveTimeMillis, int playouts) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(board.getWhiteBitBoard());
+		out.writeLong(board.getBlackBitBoard());
+		out.writeByte(turn == PawnColor.WHITE ? 0 : 1);
+		out.writeLong(moveTimeMillis);
+		out.writeInt(playouts);
+		out.flush();
+	}
+
+	/**
+	 * @throws java.io.EOFException If the connection was closed before the request.
+	 * @throws IOException If the request is not valid.
+	 */
+	@NotNull
+	static Request readRequest(@NotNull DataInputStream in) throws IOException {
+		readHeader(in);
+
+		long whites = in.readLong();
+		long blacks = in.readLong();
+		int turn = in.readByte();
+		long moveTimeMillis = in.readLong();
+		int playouts = in.readInt();
+
+		if((whites & blacks) != 0 || (turn != 0 && turn != 1) || moveTimeMillis < 1 || playouts < 0){
+			throw new IOException("Invalid search request");
+		}
+
+		return new Request(new Board(whites, blacks), turn == 0 ? PawnColor.WHITE : PawnColor.BLACK, moveTimeMillis, playouts);
+	}
+
+	static void writeResponse(@NotNull DataOutputStream out, @NotNull List<MoveStatistics> statistics) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(statistics.size());
+
+		for(MoveStatistics moveStatistics : statistics){
+			out.writeShort(moveStatistics.getMove().pack());
+			out.writeInt(moveStatistics.getNbSuccess());
+			out.writeInt(moveStatistics.getNbTries());
+			out.writeByte(moveStatistics.getProof());
+		}
+		out.flush();
+	}
+
+	/**
+	 * @throws IOException If the response is not valid.
+	 */
+	@NotNull
+	static List<MoveStatistics> readResponse(@NotNull DataInputStream in) throws IOException {
+		readHeader(in);
+
+		int count = in.readInt();
+		if(count < 0 || count > BitBoard.MAX_MOVES){
+			throw new IOException("Invalid move count: " + count);
+		}
+
+		List<MoveStatistics> statistics = new ArrayList<>(count);
+		for(int i = 0; i < count; i++){
+			int move = in.readUnsignedShort();
+			int wins = in.readInt();
+			int tries = in.readInt();
+			int proof = in.readByte();
+
+			if(move >= 1 << 12 || wins < 0 || tries < wins || proof < NodePool.PROVEN_LOSS || proof > NodePool.PROVEN_WIN){
+				throw new IOException("Invalid move statistics");
+			}
+			statistics.add(new MoveStatistics(Move.of(move), wins, tries, proof));
+		}
+
+		return statistics;
+	}
+
+	private static void readHeader(@NotNull DataInputStream in) throws IOException {
+		int magic = in.readInt();
+		int version = in.readInt();
+
+		if(magic != MAGIC){
+			throw new IOException("Not a search message");
+		} else if(version != VERSION){
+			throw new IOException("Unsupported search protocol version: " + version);
+		}
+	}
+}
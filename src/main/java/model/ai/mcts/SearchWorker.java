@@ -0,0 +1,105 @@
+package model.ai.mcts;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.SplittableRandom;
+
+/**
+ * Remote end of a {@link SearchMode#DISTRIBUTED} search: serves the search requests of coordinators over TCP, see {@link SearchProtocol}.
+ * Each connection has its own tree, searched by all the search threads of the settings. The tree is reused from one request
+ * to the next when the new position follows from the previous one, like the trees of {@link MCTS}.
+ *
+ * Usage: SearchWorker port [threads]
+ */
+public final class SearchWorker {
+
+	private final int port;
+	private final MCTSSettings settings;
+
+	/**
+	 * @param port The port to listen on, on every interface.
+	 * @param settings The settings of the trees, the search limits come with each request.
+	 */
+	public SearchWorker(int port, @NotNull MCTSSettings settings){
+		if(port < 0 || port > 0xFFFF){
+			throw new IllegalArgumentException("Port out of range: " + port);
+		}
+
+		this.port = port;
+		this.settings = settings;
+	}
+
+	/**
+	 * Accept connections until the thread is interrupted or the server socket fails, serving each one on its own thread.
+	 */
+	public void serve() throws IOException {
+		try(ServerSocket server = new ServerSocket(port)){
+			System.out.println("Search worker listening on port " + server.getLocalPort());
+
+			while(!Thread.currentThread().isInterrupted()){
+				Socket socket = server.accept();
+				Thread thread = new Thread(() -> handle(socket), "mcts-worker-" + socket.getRemoteSocketAddress());
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+	}
+
+	/**
+	 * Answer the requests of one coordinator until it disconnects.
+	 */
+	private void handle(@NotNull Socket socket){
+		try(Socket connection = socket;
+			DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))){
+			connection.setTcpNoDelay(true);
+			MCTSTree tree = null;
+
+			while(true){
+				SearchProtocol.Request request;
+				try {
+					request = SearchProtocol.readRequest(in);
+				} catch (EOFException e) {
+					return;
+				}
+
+				if(tree == null || !tree.getColor().equals(request.turn) || !tree.reroot(request.board)){
+					tree = new MCTSTree(request.board, request.turn, settings, new SplittableRandom());
+				}
+
+				// The coordinator sums the tries of every worker, stopping early would only waste the time it waits anyway.
+				SearchLimits limits = new SearchLimits();
+				limits.setMoveTimeMillis(request.moveTimeMillis);
+				limits.setPlayouts(request.playouts);
+				limits.setEarlyStop(false);
+
+				tree.search(limits, settings.getSearchThreads());
+				SearchProtocol.writeResponse(out, tree.getRootStatistics());
+			}
+		} catch (IOException e) {
+			System.err.println("Connection " + socket.getRemoteSocketAddress() + " closed: " + e.getMessage());
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1){
+			System.err.println("Usage: SearchWorker port [threads]");
+			return;
+		}
+
+		MCTSSettings settings = new MCTSSettings();
+		settings.setSearchThreads(args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors());
+		settings.setRolloutsPerLeaf(1);
+		settings.setVerbose(false);
+
+		new SearchWorker(Integer.parseInt(args[0]), settings).serve();
+	}
+}
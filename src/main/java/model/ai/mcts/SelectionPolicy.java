@@ -0,0 +1,20 @@
+package model.ai.mcts;
+
+/**
+ * Rule used to choose which son of a fully expanded node the search goes through.
+ * The son with the highest value is selected.
+ * Statistics are given from the point of view of the player choosing the move,
+ * along with the prior probability of the move given by the {@link MovePrior} of the settings, uniform by default.
+ */
+@FunctionalInterface
+public interface SelectionPolicy {
+
+	/**
+	 * @param parentTries The number of tries of the node choosing a son.
+	 * @param sonWins The number of tries won through the son by the player choosing.
+	 * @param sonTries The number of tries of the son, virtual losses included.
+	 * @param prior The prior probability of the move leading to the son, the priors of the sons of a node sum to 1.
+	 * @return The value of the son, the higher the more urgent to visit.
+	 */
+	double value(int parentTries, int sonWins, int sonTries, double prior);
+}
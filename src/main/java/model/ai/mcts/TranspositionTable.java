@@ -0,0 +1,144 @@
+package model.ai.mcts;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Bounded, lock-free map from a position key to the id of the node shared by every path reaching that position.
+ * Only ids are stored, the full key and the pawns of a node are read back from the node itself to check a hit,
+ * so two positions whose keys collide are never mistaken for one another.
+ * Slots are grouped in buckets of {@link #BUCKET_SIZE} and updated with a CAS.
+ * When a bucket is full, the {@link ReplacementScheme} decides which entry is evicted.
+ */
+class TranspositionTable {
+
+	static final int BUCKET_SIZE = 4;
+	static final int NONE = -1;
+
+	private final AtomicIntegerArray slots; // id + 1, 0 for an empty slot
+	private final int bucketMask;
+	private final ReplacementScheme scheme;
+	private final IntToLongFunction keys;
+	private final IntToLongFunction whites;
+	private final IntToLongFunction blacks;
+	private final IntUnaryOperator tries;
+
+	/**
+	 * @param capacity The maximum number of entries, rounded up to a power of two.
+	 * @param scheme The replacement scheme used when a bucket is full.
+	 * @param keys Gives the key of a node.
+	 * @param whites Gives the white pawns of the position of a node.
+	 * @param blacks Gives the black pawns of the position of a node.
+	 * @param tries Gives the number of tries of a node, used by {@link ReplacementScheme#LEAST_TRIED}.
+	 */
+	TranspositionTable(int capacity, @NotNull ReplacementScheme scheme, @NotNull IntToLongFunction keys,
+					   @NotNull IntToLongFunction whites, @NotNull IntToLongFunction blacks, @NotNull IntUnaryOperator tries){
+		int size = BUCKET_SIZE;
+		while(size < capacity){
+			size <<= 1;
+		}
+
+		this.slots = new AtomicIntegerArray(size);
+		this.bucketMask = size / BUCKET_SIZE - 1;
+		this.scheme = scheme;
+		this.keys = keys;
+		this.whites = whites;
+		this.blacks = blacks;
+		this.tries = tries;
+	}
+
+	//***** *****//
+
+	/**
+	 * @param whites The white pawns of the position, checked along with the key.
+	 * @param blacks The black pawns of the position, checked along with the key.
+	 * @return The node stored for the position, or {@link #NONE} if there is none.
+	 */
+	int get(long key, long whites, long blacks){
+		int bucket = bucketOf(key);
+
+		for(int i = bucket; i < bucket + BUCKET_SIZE; i++){
+			int id = slots.get(i) - 1;
+			if(id != NONE && holds(id, key, whites, blacks)){
+				return id;
+			}
+		}
+
+		return NONE;
+	}
+
+	/**
+	 * Store the node unless its position is already there. The key and the pawns of the node must be set before.
+	 * @return The node stored for the key before the call, or the given node if there was none.
+	 * The given node is returned even if the replacement scheme did not keep it.
+	 */
+	int putIfAbsent(int node){
+		long key = keys.applyAsLong(node);
+		long nodeWhites = whites.applyAsLong(node);
+		long nodeBlacks = blacks.applyAsLong(node);
+		int bucket = bucketOf(key);
+
+		while(true){
+			int victim = -1;
+			int victimSlot = 0;
+
+			for(int i = bucket; i < bucket + BUCKET_SIZE; i++){
+				int slot = slots.get(i);
+
+				if(slot == 0){
+					if(victim < 0 || victimSlot != 0){
+						victim = i;
+						victimSlot = 0;
+					}
+				} else if(holds(slot - 1, key, nodeWhites, nodeBlacks)){
+					return slot - 1;
+				} else if(victim < 0 || (victimSlot != 0 && isWorse(slot, victimSlot))){
+					victim = i;
+					victimSlot = slot;
+				}
+			}
+
+			if(victimSlot != 0 && scheme == ReplacementScheme.KEEP_EXISTING){
+				return node;
+			}
+			if(victimSlot != 0 && scheme == ReplacementScheme.ALWAYS){
+				victim = bucket + (int) (key >>> 62);
+				victimSlot = slots.get(victim);
+			}
+
+			if(slots.compareAndSet(victim, victimSlot, node + 1)){
+				return node;
+			}
+		}
+	}
+
+	/**
+	 * Remove every entry.
+	 */
+	void clear(){
+		for(int i = 0; i < slots.length(); i++){
+			slots.set(i, 0);
+		}
+	}
+
+	int capacity(){
+		return slots.length();
+	}
+
+	//***** *****//
+
+	private boolean holds(int id, long key, long positionWhites, long positionBlacks){
+		return keys.applyAsLong(id) == key && whites.applyAsLong(id) == positionWhites && blacks.applyAsLong(id) == positionBlacks;
+	}
+
+	private boolean isWorse(int slot, int otherSlot){
+		return tries.applyAsInt(slot - 1) < tries.applyAsInt(otherSlot - 1);
+	}
+
+	private int bucketOf(long key){
+		return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE;
+	}
+}
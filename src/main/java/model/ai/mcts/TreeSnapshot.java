@@ -0,0 +1,127 @@
+package model.ai.mcts;
+
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only snapshot of the statistics of search trees, written by {@link MCTS#writeSnapshot(Path, int)}.
+ * Given to the settings of a new engine, in the same JVM or a later one, it warm starts its trees:
+ * each node created for a position of the snapshot starts with its tries, wins and proof.
+ * The file is memory-mapped and read in place, lookups only use absolute reads so a snapshot can be shared between threads.
+ *
+ * File layout, big-endian: a header of {@link #HEADER_SIZE} bytes (magic, version, record count, unused),
+ * then {@link #RECORD_SIZE} bytes records sorted by position key, found by binary search.
+ * A record holds the position key, the tries shifted left by 2 with the proven winner in the low bits, and the wins of white.
+ * Statistics are stored for white so a snapshot can warm start an engine of either color.
+ */
+public final class TreeSnapshot {
+
+	static final int MAGIC = 0x424D4353; // "BMCS"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int RECORD_SIZE = 16;
+
+	/** The largest number of tries a record can hold, the low bits of the tries being the proven winner. */
+	static final int MAX_TRIES = Integer.MAX_VALUE >>> 2;
+
+	private static final int NO_WINNER = 0;
+	private static final int WHITE_WINS = 1;
+	private static final int BLACK_WINS = 2;
+
+	private final ByteBuffer buffer;
+	private final int size;
+
+	private TreeSnapshot(@NotNull ByteBuffer buffer){
+		if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION){
+			throw new IllegalArgumentException("Not a tree snapshot");
+		}
+
+		int records = buffer.getInt(8);
+		if(records < 0 || buffer.capacity() < HEADER_SIZE + (long) records * RECORD_SIZE){
+			throw new IllegalArgumentException("Truncated tree snapshot: " + records + " records");
+		}
+
+		this.buffer = buffer;
+		this.size = records;
+	}
+
+	/**
+	 * Map a snapshot file in memory. The file must not be modified while the snapshot is used.
+	 */
+	@NotNull
+	public static TreeSnapshot open(@NotNull Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new TreeSnapshot(buffer);
+		}
+	}
+
+	/**
+	 * @return The number of positions of the snapshot.
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * @param key The position key, see {@link model.board.utils.Zobrist#key(long, PawnColor)}.
+	 * @return The record of the position, or -1 if the position is not in the snapshot.
+	 */
+	int find(long key){
+		int low = 0;
+		int high = size - 1;
+
+		while(low <= high){
+			int middle = (low + high) >>> 1;
+			long middleKey = buffer.getLong(HEADER_SIZE + middle * RECORD_SIZE);
+
+			if(middleKey < key){
+				low = middle + 1;
+			} else if(middleKey > key){
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+
+		return -1;
+	}
+
+	int getTries(int record){
+		return buffer.getInt(HEADER_SIZE + record * RECORD_SIZE + 8) >>> 2;
+	}
+
+	/**
+	 * @return The tries of the record won by the color.
+	 */
+	int getWins(int record, @NotNull PawnColor color){
+		int whiteWins = buffer.getInt(HEADER_SIZE + record * RECORD_SIZE + 12);
+
+		return color == PawnColor.WHITE ? whiteWins : getTries(record) - whiteWins;
+	}
+
+	/**
+	 * @return The winner of the position of the record if it is proven, null otherwise.
+	 */
+	@Nullable
+	PawnColor getWinner(int record){
+		return decodeWinner(buffer.getInt(HEADER_SIZE + record * RECORD_SIZE + 8) & 3);
+	}
+
+	static int encodeWinner(@Nullable PawnColor winner){
+		return winner == null ? NO_WINNER : winner == PawnColor.WHITE ? WHITE_WINS : BLACK_WINS;
+	}
+
+	@Nullable
+	static PawnColor decodeWinner(int code){
+		return code == WHITE_WINS ? PawnColor.WHITE : code == BLACK_WINS ? PawnColor.BLACK : null;
+	}
+}
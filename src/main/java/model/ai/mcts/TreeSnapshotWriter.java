@@ -0,0 +1,119 @@
+package model.ai.mcts;
+
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming writer of a {@link TreeSnapshot}: records are given in key order and go to the file through a small buffer,
+ * so writing a snapshot never holds more than one buffer of it in memory.
+ * Consecutive records of the same position, from several trees, are summed into one.
+ * The record count is written in the header once the writer is closed.
+ */
+class TreeSnapshotWriter implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private int records = 0;
+
+	private boolean pending = false;
+	private long key;
+	private long tries;
+	private long whiteWins;
+	private PawnColor winner;
+
+	TreeSnapshotWriter(@NotNull Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		channel.position(TreeSnapshot.HEADER_SIZE);
+	}
+
+	/**
+	 * @param key The position key, not lower than the one of the previous record.
+	 * @param whiteWins The tries won by white.
+	 * @param winner The winner if the position is proven, null otherwise.
+	 */
+	void add(long key, int tries, int whiteWins, @Nullable PawnColor winner) throws IOException {
+		if(pending && key < this.key){
+			throw new IllegalArgumentException("Records must be added in key order: " + key + " after " + this.key);
+		}
+
+		if(pending && key == this.key){
+			this.tries += tries;
+			this.whiteWins += whiteWins;
+			this.winner = this.winner != null ? this.winner : winner;
+			return;
+		}
+
+		flushRecord();
+		this.pending = true;
+		this.key = key;
+		this.tries = tries;
+		this.whiteWins = whiteWins;
+		this.winner = winner;
+	}
+
+	private void flushRecord() throws IOException {
+		if(!pending){
+			return;
+		}
+
+		// Keep the win rate of a record too tried to fit.
+		if(tries > TreeSnapshot.MAX_TRIES){
+			whiteWins = whiteWins * TreeSnapshot.MAX_TRIES / tries;
+			tries = TreeSnapshot.MAX_TRIES;
+		}
+
+		if(buffer.remaining() < TreeSnapshot.RECORD_SIZE){
+			flushBuffer();
+		}
+
+		buffer.putLong(key);
+		buffer.putInt((int) tries << 2 | TreeSnapshot.encodeWinner(winner));
+		buffer.putInt((int) whiteWins);
+		records++;
+		pending = false;
+	}
+
+	private void flushBuffer() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()){
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * @return The number of records written so far, the pending one excluded until the writer is closed.
+	 */
+	int getRecords(){
+		return records;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flushRecord();
+			flushBuffer();
+
+			ByteBuffer header = ByteBuffer.allocate(TreeSnapshot.HEADER_SIZE);
+			header.putInt(0, TreeSnapshot.MAGIC);
+			header.putInt(4, TreeSnapshot.VERSION);
+			header.putInt(8, records);
+
+			for(long position = 0; header.hasRemaining();){
+				position += channel.write(header, position);
+			}
+		} finally {
+			channel.close();
+		}
+	}
+}
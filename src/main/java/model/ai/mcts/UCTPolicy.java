@@ -0,0 +1,39 @@
+package model.ai.mcts;
+
+/**
+ * UCB1 applied to trees: the win rate of the son plus an exploration term growing with the visits of the parent.
+ * The prior of the move is ignored.
+ */
+public class UCTPolicy implements SelectionPolicy {
+
+	public static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+
+	private final double exploration;
+
+	public UCTPolicy(){
+		this(DEFAULT_EXPLORATION);
+	}
+
+	/**
+	 * @param exploration The exploration constant, higher values spread the tries over more sons.
+	 */
+	public UCTPolicy(double exploration){
+		if(exploration < 0){
+			throw new IllegalArgumentException("Exploration constant cannot be negative: " + exploration);
+		}
+		this.exploration = exploration;
+	}
+
+	public double getExploration() {
+		return exploration;
+	}
+
+	@Override
+	public double value(int parentTries, int sonWins, int sonTries, double prior){
+		if(sonTries == 0){
+			return Double.POSITIVE_INFINITY;
+		}
+
+		return ((double) sonWins) / sonTries + exploration * Math.sqrt(Math.log(Math.max(parentTries, 1)) / sonTries);
+	}
+}
@@ -3,25 +3,41 @@ package model.ai.random;
 import model.ai.AI;
 import model.board.Board;
 import model.board.Move;
+import model.board.utils.BitBoard;
 import model.board.utils.PawnColor;
 
-import java.util.List;
+import java.util.SplittableRandom;
 
 public class Random implements AI {
 
 	private PawnColor color;
+	private int[] possibleMoves = new int[BitBoard.MAX_MOVES];
+	private SplittableRandom random;
 
 	public Random(PawnColor color){
+		this(color, new SplittableRandom());
+	}
+
+	/**
+	 * @param seed The seed of the generator, the same seed plays the same moves on the same boards.
+	 */
+	public Random(PawnColor color, long seed){
+		this(color, new SplittableRandom(seed));
+	}
+
+	private Random(PawnColor color, SplittableRandom random){
 		this.color = color;
+		this.random = random;
 	}
 
 	@Override
 	public Move getAIMove(Board board) {
-		Move bestMove;
+		int count = board.getAllPossibleMoves(color, possibleMoves);
 
-		List<Move> listPossibleMoves = board.getAllPossibleMoves(color);
-		bestMove = listPossibleMoves.get((int) (Math.random() * listPossibleMoves.size()));
+		if(count == 0){
+			return null;
+		}
 
-		return bestMove;
+		return Move.of(possibleMoves[random.nextInt(count)]);
 	}
 }
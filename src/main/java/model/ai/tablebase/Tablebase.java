@@ -0,0 +1,88 @@
+package model.ai.tablebase;
+
+import model.board.Board;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only endgame tablebase: the game theoretic value of every position with few pawns per side, solved offline by {@link TablebaseGenerator}.
+ * There is no draw in Breakthrough, so a single bit per position tells whether the player to move wins.
+ * The file is memory-mapped and read in place, probes only use absolute reads so a tablebase can be shared between threads.
+ *
+ * File layout, big-endian: a header of {@link #HEADER_SIZE} bytes (magic, version, pawns per side, position count),
+ * then one bit per position numbered by {@link TablebaseIndex}, the lowest bit of each byte first.
+ */
+public final class Tablebase {
+
+	static final int MAGIC = 0x424D4354; // "BMCT"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+
+	/** Probe results, for the player to move. */
+	public static final int WIN = 1;
+	public static final int LOSS = -1;
+	public static final int UNKNOWN = 0;
+
+	private final ByteBuffer buffer;
+	private final TablebaseIndex index;
+
+	private Tablebase(@NotNull ByteBuffer buffer){
+		if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION){
+			throw new IllegalArgumentException("Not a tablebase");
+		}
+
+		this.index = new TablebaseIndex(buffer.getInt(8));
+		if(buffer.getInt(12) != index.getPositions() || buffer.capacity() < HEADER_SIZE + (index.getPositions() + 7L) / 8){
+			throw new IllegalArgumentException("Truncated tablebase: " + buffer.getInt(12) + " positions");
+		}
+
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Map a tablebase file in memory. The file must not be modified while the tablebase is used.
+	 */
+	@NotNull
+	public static Tablebase open(@NotNull Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new Tablebase(buffer);
+		}
+	}
+
+	/**
+	 * @return The largest number of pawns of one side in a covered position.
+	 */
+	public int getPawnsPerSide(){
+		return index.getPawnsPerSide();
+	}
+
+	/**
+	 * @param turn The color of the player who is able to move a pawn.
+	 * @return {@link #WIN} or {@link #LOSS} for the player to move, {@link #UNKNOWN} if the position is not covered.
+	 */
+	public int probe(@NotNull Board board, @NotNull PawnColor turn){
+		return probe(board.getWhiteBitBoard(), board.getBlackBitBoard(), turn);
+	}
+
+	/**
+	 * Cheap enough to be called at each ply of a playout: positions with too many pawns are rejected with two bit counts.
+	 * @param turn The color of the player who is able to move a pawn.
+	 * @return {@link #WIN} or {@link #LOSS} for the player to move, {@link #UNKNOWN} if the position is not covered or already finished.
+	 */
+	public int probe(long whites, long blacks, @NotNull PawnColor turn){
+		int position = index.position(whites, blacks, turn);
+		if(position < 0){
+			return UNKNOWN;
+		}
+
+		return (buffer.get(HEADER_SIZE + (position >>> 3)) & (1 << (position & 7))) != 0 ? WIN : LOSS;
+	}
+}
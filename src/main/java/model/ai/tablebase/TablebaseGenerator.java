@@ -0,0 +1,219 @@
+package model.ai.tablebase;
+
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline generator of a {@link Tablebase} by retrograde analysis: positions are solved from the end of the game backward,
+ * each one after every position it leads to.
+ * Pawns only move forward, so a move either captures, and leads to a position with fewer pawns,
+ * or adds one row to the progress of the pawns of the mover. Solving the positions by increasing number of pawns,
+ * then by decreasing progress, always finds the positions after a move already solved.
+ *
+ * Usage: TablebaseGenerator file [pawnsPerSide]
+ */
+public final class TablebaseGenerator {
+
+	/** Rows a pawn crosses before the one it wins on. */
+	private static final int MAX_PROGRESS = 6;
+
+	private final TablebaseIndex index;
+	private final byte[] bits;
+	private long wins;
+
+	/**
+	 * @param pawnsPerSide The largest number of pawns of one side, from 1 to 3. 3 pawns per side need more than 200 MB.
+	 */
+	public TablebaseGenerator(int pawnsPerSide){
+		this.index = new TablebaseIndex(pawnsPerSide);
+		this.bits = new byte[(int) ((index.getPositions() + 7L) / 8)];
+	}
+
+	/**
+	 * Solve every position.
+	 */
+	public void generate(){
+		int pawnsPerSide = index.getPawnsPerSide();
+		int[][][] whiteSides = groupSides(PawnColor.WHITE);
+		int[][][] blackSides = groupSides(PawnColor.BLACK);
+		int[] moves = new int[BitBoard.MAX_MOVES];
+
+		for(int pawns = 2; pawns <= 2 * pawnsPerSide; pawns++){
+			for(int progress = MAX_PROGRESS * pawns; progress >= 0; progress--){
+				for(int whiteCount = Math.max(1, pawns - pawnsPerSide); whiteCount <= Math.min(pawnsPerSide, pawns - 1); whiteCount++){
+					int blackCount = pawns - whiteCount;
+
+					for(int whiteProgress = 0; whiteProgress <= Math.min(MAX_PROGRESS * whiteCount, progress); whiteProgress++){
+						int blackProgress = progress - whiteProgress;
+						if(blackProgress > MAX_PROGRESS * blackCount){
+							continue;
+						}
+
+						for(int whiteSide : whiteSides[whiteCount][whiteProgress]){
+							for(int blackSide : blackSides[blackCount][blackProgress]){
+								solve(whiteSide, blackSide, moves);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The sets of pawns of the color, by number of pawns and progress.
+	 */
+	@NotNull
+	private int[][][] groupSides(@NotNull PawnColor color){
+		int pawnsPerSide = index.getPawnsPerSide();
+		List<List<List<Integer>>> groups = new ArrayList<>();
+
+		for(int count = 0; count <= pawnsPerSide; count++){
+			List<List<Integer>> byProgress = new ArrayList<>();
+			for(int progress = 0; progress <= MAX_PROGRESS * count; progress++){
+				byProgress.add(new ArrayList<>());
+			}
+			groups.add(byProgress);
+		}
+
+		for(int side = 0; side < index.getSides(); side++){
+			long pawns = index.pawns(color, side);
+			groups.get(Long.bitCount(pawns)).get(progress(color, pawns)).add(side);
+		}
+
+		int[][][] sides = new int[pawnsPerSide + 1][][];
+		for(int count = 0; count <= pawnsPerSide; count++){
+			sides[count] = new int[groups.get(count).size()][];
+			for(int progress = 0; progress < sides[count].length; progress++){
+				sides[count][progress] = groups.get(count).get(progress).stream().mapToInt(Integer::intValue).toArray();
+			}
+		}
+
+		return sides;
+	}
+
+	/**
+	 * @return The number of rows crossed by the pawns of the color since the row behind their starting rows.
+	 */
+	private static int progress(@NotNull PawnColor color, long pawns){
+		int progress = 0;
+
+		for(; pawns != 0; pawns &= pawns - 1){
+			int row = BitBoard.row(Long.numberOfTrailingZeros(pawns));
+			progress += color == PawnColor.WHITE ? 7 - row : row;
+		}
+
+		return progress;
+	}
+
+	/**
+	 * Solve the position for both players to move, unless pawns of both sides share a square.
+	 */
+	private void solve(int whiteSide, int blackSide, int[] moves){
+		long whites = index.pawns(PawnColor.WHITE, whiteSide);
+		long blacks = index.pawns(PawnColor.BLACK, blackSide);
+
+		if((whites & blacks) != 0){
+			return;
+		}
+
+		for(PawnColor turn : PawnColor.values()){
+			if(isWinning(whites, blacks, turn, moves)){
+				int position = index.position(whiteSide, blackSide, turn);
+				bits[position >>> 3] |= 1 << (position & 7);
+				wins++;
+			}
+		}
+	}
+
+	/**
+	 * @return True if one move of the player to move wins at once or leads to a position lost for the opponent.
+	 */
+	private boolean isWinning(long whites, long blacks, @NotNull PawnColor turn, int[] moves){
+		int count = BitBoard.generateMoves(whites, blacks, turn, moves);
+
+		for(int i = 0; i < count; i++){
+			long from = 1L << BitBoard.moveFrom(moves[i]);
+			long to = 1L << BitBoard.moveTo(moves[i]);
+			long nextWhites;
+			long nextBlacks;
+
+			if(turn == PawnColor.WHITE){
+				nextWhites = whites ^ from ^ to;
+				nextBlacks = blacks & ~to;
+				if(BitBoard.whiteHasWon(nextWhites, nextBlacks)){
+					return true;
+				}
+			} else {
+				nextWhites = whites & ~to;
+				nextBlacks = blacks ^ from ^ to;
+				if(BitBoard.blackHasWon(nextWhites, nextBlacks)){
+					return true;
+				}
+			}
+
+			int next = index.position(nextWhites, nextBlacks, turn.getOpposite());
+			if(next < 0){
+				throw new IllegalStateException("Position out of the tablebase after " + moves[i]);
+			} else if((bits[next >>> 3] & (1 << (next & 7))) == 0){
+				return true;
+			}
+		}
+
+		return false; // Every move loses, or there is no move at all
+	}
+
+	/**
+	 * @return The number of positions won for the player to move.
+	 */
+	public long getWins(){
+		return wins;
+	}
+
+	public void write(@NotNull Path file) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_SIZE);
+		header.putInt(0, Tablebase.MAGIC);
+		header.putInt(4, Tablebase.VERSION);
+		header.putInt(8, index.getPawnsPerSide());
+		header.putInt(12, index.getPositions());
+
+		ByteBuffer body = ByteBuffer.wrap(bits);
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+			while(header.hasRemaining()){
+				channel.write(header);
+			}
+			while(body.hasRemaining()){
+				channel.write(body);
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1){
+			System.err.println("Usage: TablebaseGenerator file [pawnsPerSide]");
+			return;
+		}
+
+		Path file = Paths.get(args[0]);
+		int pawnsPerSide = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+		long start = System.nanoTime();
+		TablebaseGenerator generator = new TablebaseGenerator(pawnsPerSide);
+		generator.generate();
+		generator.write(file);
+
+		System.out.println(generator.index.getPositions() + " positions, " + generator.getWins() + " won for the player to move, solved in "
+				+ (System.nanoTime() - start) / 1_000_000 + " ms and written to " + file);
+	}
+}
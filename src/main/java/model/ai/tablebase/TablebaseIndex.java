@@ -0,0 +1,126 @@
+package model.ai.tablebase;
+
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Numbering of the positions with 1 to {@link #getPawnsPerSide()} pawns per side.
+ * A pawn never stands on the row where it would have won, so each side has 56 squares to choose from.
+ * The pawns of a side are numbered by their count, then by the combinatorial number system of their squares.
+ * A position is the pair of the two sides, times the player to move.
+ */
+final class TablebaseIndex {
+
+	/** The number of squares a pawn of one side can stand on while the game is running. */
+	static final int SQUARES = 56;
+	static final int MAX_PAWNS_PER_SIDE = 3;
+
+	private static final int[][] binomials = new int[SQUARES + 1][MAX_PAWNS_PER_SIDE + 1];
+
+	static {
+		for(int n = 0; n <= SQUARES; n++){
+			binomials[n][0] = 1;
+			for(int k = 1; k <= MAX_PAWNS_PER_SIDE; k++){
+				binomials[n][k] = n == 0 ? 0 : binomials[n - 1][k - 1] + binomials[n - 1][k];
+			}
+		}
+	}
+
+	private final int pawnsPerSide;
+	private final int[] offsets;
+	private final int sides;
+
+	TablebaseIndex(int pawnsPerSide){
+		if(pawnsPerSide < 1 || pawnsPerSide > MAX_PAWNS_PER_SIDE){
+			throw new IllegalArgumentException("Pawns per side out of range: " + pawnsPerSide);
+		}
+
+		this.pawnsPerSide = pawnsPerSide;
+		this.offsets = new int[pawnsPerSide + 2];
+
+		for(int count = 1; count <= pawnsPerSide; count++){
+			offsets[count + 1] = offsets[count] + binomials[SQUARES][count];
+		}
+		this.sides = offsets[pawnsPerSide + 1];
+	}
+
+	int getPawnsPerSide(){
+		return pawnsPerSide;
+	}
+
+	/**
+	 * @return The number of sets of pawns of one side.
+	 */
+	int getSides(){
+		return sides;
+	}
+
+	/**
+	 * @return The number of positions, some of them impossible because pawns of both sides share a square.
+	 */
+	int getPositions(){
+		return sides * sides * 2;
+	}
+
+	int position(int whiteSide, int blackSide, @NotNull PawnColor turn){
+		return (whiteSide * sides + blackSide) * 2 + (turn == PawnColor.BLACK ? 1 : 0);
+	}
+
+	/**
+	 * @return The index of the position, or -1 if it is not covered: too many pawns, no pawn, or a pawn on its last row.
+	 */
+	int position(long whites, long blacks, @NotNull PawnColor turn){
+		int whiteSide = side(PawnColor.WHITE, whites);
+		int blackSide = side(PawnColor.BLACK, blacks);
+
+		return whiteSide < 0 || blackSide < 0 ? -1 : position(whiteSide, blackSide, turn);
+	}
+
+	/**
+	 * @return The index of the set of pawns of the color, or -1 if it is not covered.
+	 */
+	int side(@NotNull PawnColor color, long pawns){
+		int count = Long.bitCount(pawns);
+		long lastRow = color == PawnColor.WHITE ? BitBoard.ROW_0 : BitBoard.ROW_7;
+
+		if(count == 0 || count > pawnsPerSide || (pawns & lastRow) != 0){
+			return -1;
+		}
+
+		// White pawns stand on the squares 8 to 63, black ones on the squares 0 to 55.
+		long squares = color == PawnColor.WHITE ? pawns >>> 8 : pawns;
+		int rank = offsets[count];
+
+		for(int i = 1; squares != 0; i++, squares &= squares - 1){
+			rank += binomials[Long.numberOfTrailingZeros(squares)][i];
+		}
+
+		return rank;
+	}
+
+	/**
+	 * @return The pawns of the color for the given set index, the inverse of {@link #side(PawnColor, long)}.
+	 */
+	long pawns(@NotNull PawnColor color, int side){
+		int count = 1;
+		while(side >= offsets[count + 1]){
+			count++;
+		}
+
+		int rank = side - offsets[count];
+		long squares = 0;
+
+		// Take the squares from the highest one down, each one being the largest n with C(n, i) <= rank.
+		for(int i = count; i >= 1; i--){
+			int n = i - 1;
+			while(n + 1 < SQUARES && binomials[n + 1][i] <= rank){
+				n++;
+			}
+			squares |= 1L << n;
+			rank -= binomials[n][i];
+		}
+
+		return color == PawnColor.WHITE ? squares << 8 : squares;
+	}
+}
@@ -1,58 +1,76 @@
 package model.board;
 
 
+import model.board.utils.BitBoard;
 import model.board.utils.PawnColor;
 import model.board.utils.Tile;
+import model.board.utils.Zobrist;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Board of the game, backed by one bitboard per color (see {@link BitBoard} for the square layout).
+ */
 public class Board {
 
 	public static final int SIZEX = 8;
 	public static final int SIZEY = 8;
 
-	private Tile[][] tiles;
-	private List<Position> whites = new ArrayList<>();
-	private List<Position> blacks = new ArrayList<>();
+	private static final int CAPTURE = 1 << 12;
+	private static final int WHITE_HAS_WON = 1 << 13;
+	private static final int BLACK_HAS_WON = 1 << 14;
+
+	private long whites;
+	private long blacks;
+	private long hash;
 
 	private boolean whiteHasWon = false;
 	private boolean blackHasWon = false;
 
-	public Board(){
-		tiles = new Tile[SIZEX][SIZEY];
+	// Undo records of the moves done with makeMove, see pushUndo for the layout.
+	private int[] undoStack = new int[0];
+	private int undoSize = 0;
 
+	public Board(){
 		initializeBoard();
 	}
 
+	/**
+	 * Copy the position of the board. The copy starts with an empty undo stack.
+	 */
 	public Board(Board board){
-		this.tiles = new Tile[board.tiles.length][board.tiles[0].length];
-
-		for(int i = 0; i < this.tiles.length; i++){
-			System.arraycopy(board.tiles[i], 0, this.tiles[i], 0, this.tiles[i].length);
-		}
-
-		whites = new ArrayList<>(board.whites);
-		blacks = new ArrayList<>(board.blacks);
+		whites = board.whites;
+		blacks = board.blacks;
+		hash = board.hash;
 
 		whiteHasWon = board.whiteHasWon;
 		blackHasWon = board.blackHasWon;
 	}
 
-	public Board(@NotNull Board board, @NotNull Move move){
-		this.tiles = new Tile[board.tiles.length][board.tiles[0].length];
-
-		for(int i = 0; i < this.tiles.length; i++){
-			System.arraycopy(board.tiles[i], 0, this.tiles[i], 0, this.tiles[i].length);
+	/**
+	 * Set up any position, for instance one received from another process. The undo stack starts empty.
+	 * @param whites The white pawns, see {@link BitBoard} for the square layout.
+	 * @param blacks The black pawns, on other squares than the white ones.
+	 */
+	public Board(long whites, long blacks){
+		if((whites & blacks) != 0){
+			throw new IllegalArgumentException("Pawns of both colors on the same squares: " + Long.toHexString(whites & blacks));
 		}
 
-		whites = new ArrayList<>(board.whites);
-		blacks = new ArrayList<>(board.blacks);
+		this.whites = whites;
+		this.blacks = blacks;
+		this.hash = Zobrist.hash(whites, blacks);
 
-		whiteHasWon = board.whiteHasWon;
-		blackHasWon = board.blackHasWon;
+		whiteHasWon = BitBoard.whiteHasWon(whites, blacks);
+		blackHasWon = BitBoard.blackHasWon(whites, blacks);
+	}
+
+	public Board(@NotNull Board board, @NotNull Move move){
+		this(board);
 
 		this.movePawn(move);
 	}
@@ -60,81 +78,29 @@ public class Board {
 	//********** Initialize Methods **********//
 
 	private void initializeBoard(){
-		for(int i = 0; i < tiles.length; i++){
-			for(int j = 0; j < tiles[0].length; j++){
-				if(i < 2){
-					tiles[i][j] = Tile.BLACK;
-					blacks.add(new Position(i, j));
-				} else if(i > SIZEY-3) {
-					tiles[i][j] = Tile.WHITE;
-					whites.add(new Position(i, j));
-				} else {
-					tiles[i][j] = Tile.EMPTY;
-				}
-			}
-		}
+		whites = BitBoard.WHITE_START;
+		blacks = BitBoard.BLACK_START;
+		hash = Zobrist.hash(whites, blacks);
 	}
 
 	//********** Public Methods **********//
 
 	public List<Move> getPossibleMoves(Position position){
-		Tile tile = tiles[position.x][position.y];
 		List<Move> possiblePositions = new ArrayList<>();
 
-		// Get the possible moves for the white pawns.
-		if(tile.equals(Tile.WHITE)){
-			Tile left = null;
-			Tile right = null;
-			Tile up = null;
-
-			if (position.x != 0) {
-				if(position.y != 0) {
-					left = tiles[position.x - 1][position.y - 1];
-				}
-				if(position.y != SIZEY-1) {
-					right = tiles[position.x-1][position.y+1];
-				}
-				up = tiles[position.x-1][position.y];
-			}
+		if(position.isValid()){
+			int from = position.getSquare();
+			long targets = 0;
 
-			if(left != null && (left.equals(Tile.EMPTY) || left.equals(Tile.BLACK))) {
-				possiblePositions.add(
-						new Move(position, new Position(position.x - 1, position.y - 1)));
-			}
-			if(right != null && (right.equals(Tile.EMPTY) || right.equals(Tile.BLACK))) {
-				possiblePositions.add(
-						new Move(position, new Position(position.x - 1, position.y + 1)));
-			}
-			if(up != null && up.equals(Tile.EMPTY)){
-				possiblePositions.add(
-						new Move(position, new Position(position.x - 1, position.y)));
-			}
-		} else if(tile.equals(Tile.BLACK)) {
-			Tile left = null;
-			Tile right = null;
-			Tile down = null;
-
-			if (position.x != SIZEX-1) {
-				if(position.y != 0) {
-					left = tiles[position.x + 1][position.y - 1];
-				}
-				if(position.y != SIZEY-1) {
-					right = tiles[position.x + 1][position.y + 1];
-				}
-				down = tiles[position.x + 1][position.y];
+			if((whites & (1L << from)) != 0){
+				targets = BitBoard.targets(PawnColor.WHITE, from, whites, blacks);
+			} else if((blacks & (1L << from)) != 0){
+				targets = BitBoard.targets(PawnColor.BLACK, from, whites, blacks);
 			}
 
-			if(left != null && (left.equals(Tile.EMPTY) || left.equals(Tile.WHITE))) {
-				possiblePositions.add(
-						new Move(position, new Position(position.x + 1, position.y - 1)));
-			}
-			if(right != null && (right.equals(Tile.EMPTY) || right.equals(Tile.WHITE))) {
-				possiblePositions.add(
-						new Move(position, new Position(position.x + 1, position.y + 1)));
-			}
-			if(down != null && down.equals(Tile.EMPTY)){
-				possiblePositions.add(
-						new Move(position, new Position(position.x + 1, position.y)));
+			while(targets != 0){
+				possiblePositions.add(Move.of(BitBoard.encodeMove(from, Long.numberOfTrailingZeros(targets))));
+				targets &= targets - 1;
 			}
 		}
 
@@ -145,7 +111,13 @@ public class Board {
 		Tile tile = Tile.EMPTY;
 
 		if(position.isValid()){
-			tile = tiles[position.x][position.y];
+			long square = 1L << position.getSquare();
+
+			if((whites & square) != 0){
+				tile = Tile.WHITE;
+			} else if((blacks & square) != 0){
+				tile = Tile.BLACK;
+			}
 		}
 
 		return tile;
@@ -153,59 +125,143 @@ public class Board {
 
 	public void movePawn(Move move){
 		if(!whiteHasWon && !blackHasWon
-				&& move.start.isValid() && move.end.isValid()
-				&& !getTile(move.start).equals(Tile.EMPTY) && getPossibleMoves(move.start).contains(move)){
-
-			switch (getTile(move.start)){
-				case WHITE:
-					whites.remove(move.start);
-					whites.add(move.end);
-					blacks.remove(move.end);
-
-					tiles[move.start.x][move.start.y] = Tile.EMPTY;
-					tiles[move.end.x][move.end.y] = Tile.WHITE;
-					whiteHasWon = move.end.x == 0 || blacks.size() == 0;
-					break;
-				case BLACK:
-					blacks.remove(move.start);
-					blacks.add(move.end);
-					whites.remove(move.end);
-
-					tiles[move.start.x][move.start.y] = Tile.EMPTY;
-					tiles[move.end.x][move.end.y] = Tile.BLACK;
-					blackHasWon = move.end.x == SIZEX-1 || whites.size() == 0;
-					break;
+				&& move.start.isValid() && move.end.isValid()){
+			int from = move.start.getSquare();
+			long end = 1L << move.end.getSquare();
+
+			if(((whites & (1L << from)) != 0 && (BitBoard.targets(PawnColor.WHITE, from, whites, blacks) & end) != 0)
+					|| ((blacks & (1L << from)) != 0 && (BitBoard.targets(PawnColor.BLACK, from, whites, blacks) & end) != 0)){
+				movePawn(move.pack());
 			}
 		}
 	}
 
 	public List<Move> getAllPossibleMoves(PawnColor color){
-		List<Move> possibleMoves = new ArrayList<>();
-		List<Position> pawnPositions;
+		int[] moves = new int[BitBoard.MAX_MOVES];
+		int count = BitBoard.generateMoves(whites, blacks, color, moves);
+		List<Move> possibleMoves = new ArrayList<>(count);
+
+		for(int i = 0; i < count; i++){
+			possibleMoves.add(Move.of(moves[i]));
+		}
 
-		if(color.equals(PawnColor.WHITE)){
-			pawnPositions = whites;
+		return possibleMoves;
+	}
+
+	/**
+	 * Write every possible move of a color in the buffer, packed as done by {@link BitBoard#encodeMove(int, int)}.
+	 * @param buffer Must hold at least {@link BitBoard#MAX_MOVES} entries.
+	 * @return The number of moves written.
+	 */
+	public int getAllPossibleMoves(@NotNull PawnColor color, int[] buffer){
+		return BitBoard.generateMoves(whites, blacks, color, buffer);
+	}
+
+	/**
+	 * Move a pawn without any legality check.
+	 * @param move A packed move given by {@link #getAllPossibleMoves(PawnColor, int[])} for this board.
+	 */
+	public void movePawn(int move){
+		int from = BitBoard.moveFrom(move);
+		int to = BitBoard.moveTo(move);
+		long start = 1L << from;
+		long end = 1L << to;
+
+		hash ^= hashDelta(from, to);
+
+		if((whites & start) != 0){
+			whites ^= start | end;
+			blacks &= ~end;
+			whiteHasWon = BitBoard.whiteHasWon(whites, blacks);
 		} else {
-			pawnPositions = blacks;
+			blacks ^= start | end;
+			whites &= ~end;
+			blackHasWon = BitBoard.blackHasWon(whites, blacks);
 		}
+	}
 
-		for(Position pawnPosition : pawnPositions){
-			possibleMoves.addAll(getPossibleMoves(pawnPosition));
+	/**
+	 * Move a pawn without any legality check, and remember how to undo it.
+	 * @param move A packed move given by {@link #getAllPossibleMoves(PawnColor, int[])} for this board.
+	 * @see #unmakeMove()
+	 */
+	public void makeMove(int move){
+		pushUndo(move);
+		movePawn(move);
+	}
+
+	/**
+	 * Undo the last move done with {@link #makeMove(int)}, restoring the captured pawn and the win flags.
+	 */
+	public void unmakeMove(){
+		if(undoSize == 0){
+			throw new IllegalStateException("No move to undo");
 		}
-		return possibleMoves;
+
+		int record = undoStack[--undoSize];
+		int from = BitBoard.moveFrom(record & 0xFFF);
+		int to = BitBoard.moveTo(record & 0xFFF);
+		long start = 1L << from;
+		long end = 1L << to;
+
+		if((whites & end) != 0){
+			whites ^= start | end;
+			if((record & CAPTURE) != 0){
+				blacks |= end;
+			}
+		} else {
+			blacks ^= start | end;
+			if((record & CAPTURE) != 0){
+				whites |= end;
+			}
+		}
+
+		hash ^= hashDelta(from, to);
+		whiteHasWon = (record & WHITE_HAS_WON) != 0;
+		blackHasWon = (record & BLACK_HAS_WON) != 0;
+	}
+
+	/**
+	 * @return The number of moves which can be undone.
+	 */
+	public int getUndoSize(){
+		return undoSize;
+	}
+
+	/**
+	 * @param move A packed move given by {@link #getAllPossibleMoves(PawnColor, int[])} for this board.
+	 * @return The hash the board would have after the move, the board itself is left untouched.
+	 */
+	public long hashAfter(int move){
+		return hash ^ hashDelta(BitBoard.moveFrom(move), BitBoard.moveTo(move));
 	}
 
 	//********** Getters/Setters Methods **********//
 
 	// Getters //
 	public List<Position> getWhites() {
-		return whites;
+		return toPositions(whites);
 	}
 
 	public List<Position> getBlacks() {
+		return toPositions(blacks);
+	}
+
+	public long getWhiteBitBoard() {
+		return whites;
+	}
+
+	public long getBlackBitBoard() {
 		return blacks;
 	}
 
+	/**
+	 * @return The Zobrist hash of the pawns, kept up to date at each move. See {@link Zobrist#key(long, PawnColor)} to add the player to move.
+	 */
+	public long getHash() {
+		return hash;
+	}
+
 	public boolean whiteHasWon(){
 		return whiteHasWon;
 	}
@@ -223,13 +279,78 @@ public class Board {
 		return whiteHasWon || blackHasWon;
 	}
 
+	//********** Private Methods **********//
+
+	/**
+	 * Push the undo record of a move about to be done: the packed move on the 12 lowest bits,
+	 * then one bit for a capture and one bit for each win flag before the move.
+	 */
+	private void pushUndo(int move){
+		int record = move & 0xFFF;
+
+		if(((whites | blacks) & (1L << BitBoard.moveTo(move))) != 0){
+			record |= CAPTURE;
+		}
+		if(whiteHasWon){
+			record |= WHITE_HAS_WON;
+		}
+		if(blackHasWon){
+			record |= BLACK_HAS_WON;
+		}
+
+		if(undoSize == undoStack.length){
+			undoStack = Arrays.copyOf(undoStack, Math.max(64, undoSize * 2));
+		}
+		undoStack[undoSize++] = record;
+	}
+
+	/**
+	 * @return The change of hash when the pawn on the from square moves to the to square, capture included.
+	 */
+	private long hashDelta(int from, int to){
+		long end = 1L << to;
+
+		if((whites & (1L << from)) != 0){
+			return Zobrist.white(from) ^ Zobrist.white(to) ^ ((blacks & end) != 0 ? Zobrist.black(to) : 0);
+		} else {
+			return Zobrist.black(from) ^ Zobrist.black(to) ^ ((whites & end) != 0 ? Zobrist.white(to) : 0);
+		}
+	}
+
+	private static List<Position> toPositions(long pawns){
+		List<Position> positions = new ArrayList<>(Long.bitCount(pawns));
+
+		while(pawns != 0){
+			int square = Long.numberOfTrailingZeros(pawns);
+			positions.add(Position.of(square));
+			pawns &= pawns - 1;
+		}
+
+		return positions;
+	}
+
 	//********** Standard Methods **********//
 
+	@Override
+	public boolean equals(Object obj) {
+		if(obj instanceof Board){
+			Board board = (Board) obj;
+			return whites == board.whites && blacks == board.blacks
+					&& whiteHasWon == board.whiteHasWon && blackHasWon == board.blackHasWon;
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(hash);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sbBoard = new StringBuilder("");
 
-		for (int i = -1; i < tiles.length; i++) {
+		for (int i = -1; i < SIZEX; i++) {
 
 			if(i == -1){
 				sbBoard.append("  ");
@@ -237,8 +358,8 @@ public class Board {
 			} else {
 				sbBoard.append(i);
 				sbBoard.append('|');
-				for (int j = 0; j < tiles[0].length; j++) {
-					sbBoard.append(tiles[i][j]);
+				for (int j = 0; j < SIZEY; j++) {
+					sbBoard.append(getTile(Position.of(BitBoard.square(i, j))));
 					sbBoard.append(' ');
 				}
 				sbBoard.append('\n');
@@ -1,15 +1,44 @@
 package model.board;
 
+import model.board.utils.BitBoard;
+
+/**
+ * Object view of a move. The engine works on packed moves, see {@link BitBoard#encodeMove(int, int)},
+ * and {@link #of(int)} gives back a shared instance for any of them.
+ */
 public class Move {
 
-	public Position start;
-	public Position end;
+	private static final Move[] packedMoves = new Move[1 << 12];
+
+	static {
+		for(int move = 0; move < packedMoves.length; move++){
+			packedMoves[move] = new Move(Position.of(BitBoard.moveFrom(move)), Position.of(BitBoard.moveTo(move)));
+		}
+	}
+
+	public final Position start;
+	public final Position end;
 
 	public Move(Position start, Position end){
 		this.start = start;
 		this.end = end;
 	}
 
+	/**
+	 * @param move A packed move.
+	 * @return The shared instance of the move, no allocation involved.
+	 */
+	public static Move of(int move){
+		return packedMoves[move];
+	}
+
+	/**
+	 * @return The packed move, both positions must be valid.
+	 */
+	public int pack(){
+		return BitBoard.encodeMove(start.getSquare(), end.getSquare());
+	}
+
 	@Override
 	public String toString() {
 		return start+"->"+end;
@@ -23,4 +52,9 @@ public class Move {
 		}
 		return false;
 	}
+
+	@Override
+	public int hashCode() {
+		return 31 * start.hashCode() + end.hashCode();
+	}
 }
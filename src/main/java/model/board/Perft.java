@@ -0,0 +1,145 @@
+package model.board;
+
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Performance test of the move generator: the number of positions reached after a given number of moves, every line played.
+ * A finished game has no move, the positions counted at the last move are the moves themselves.
+ *
+ * Usage: Perft [depth] [threads], prints the count and the speed for each depth up to the given one.
+ */
+public final class Perft {
+
+	private Perft(){}
+
+	/**
+	 * Count on the current thread.
+	 * @param board The position to start from, left untouched.
+	 * @param turn The color of the player who is able to move a pawn.
+	 */
+	public static long perft(@NotNull Board board, @NotNull PawnColor turn, int depth){
+		return count(new Board(board), turn, depth, new int[Math.max(1, depth)][BitBoard.MAX_MOVES]);
+	}
+
+	/**
+	 * Count with one task per root move on the given pool.
+	 * @param board The position to start from, left untouched.
+	 * @param turn The color of the player who is able to move a pawn.
+	 */
+	public static long perft(@NotNull Board board, @NotNull PawnColor turn, int depth, @NotNull ForkJoinPool pool){
+		if(depth < 2 || board.isFinished()){
+			return perft(board, turn, depth);
+		}
+
+		return pool.invoke(new RootSplit(board, turn, depth));
+	}
+
+	/**
+	 * Make and unmake the moves on one board, the moves of the last ply are counted without being played.
+	 * @param buffers One move buffer per remaining ply.
+	 */
+	private static long count(@NotNull Board board, @NotNull PawnColor turn, int depth, int[][] buffers){
+		if(depth == 0){
+			return 1;
+		} else if(board.isFinished()){
+			return 0;
+		}
+
+		int[] moves = buffers[depth - 1];
+		int count = board.getAllPossibleMoves(turn, moves);
+
+		if(depth == 1){
+			return count;
+		}
+
+		long nodes = 0;
+		for(int i = 0; i < count; i++){
+			board.makeMove(moves[i]);
+			nodes += count(board, turn.getOpposite(), depth - 1, buffers);
+			board.unmakeMove();
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Forks one task per root move and sums their counts.
+	 */
+	private static final class RootSplit extends RecursiveTask<Long>{
+		private static final long serialVersionUID = 1L;
+
+		private final Board board;
+		private final PawnColor turn;
+		private final int depth;
+
+		private RootSplit(@NotNull Board board, @NotNull PawnColor turn, int depth){
+			this.board = board;
+			this.turn = turn;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute(){
+			int[] moves = new int[BitBoard.MAX_MOVES];
+			int count = board.getAllPossibleMoves(turn, moves);
+			List<RootMove> tasks = new ArrayList<>(count);
+
+			for(int i = 0; i < count; i++){
+				Board child = new Board(board);
+				child.movePawn(moves[i]);
+				tasks.add(new RootMove(child, turn.getOpposite(), depth - 1));
+			}
+
+			long nodes = 0;
+			for(RootMove task : invokeAll(tasks)){
+				nodes += task.join();
+			}
+
+			return nodes;
+		}
+	}
+
+	private static final class RootMove extends RecursiveTask<Long>{
+		private static final long serialVersionUID = 1L;
+
+		private final Board board;
+		private final PawnColor turn;
+		private final int depth;
+
+		private RootMove(@NotNull Board board, @NotNull PawnColor turn, int depth){
+			this.board = board;
+			this.turn = turn;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute(){
+			return count(board, turn, depth, new int[depth][BitBoard.MAX_MOVES]);
+		}
+	}
+
+	public static void main(String[] args){
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		Board board = new Board();
+
+		for(int d = 1; d <= depth; d++){
+			long start = System.nanoTime();
+			long nodes = perft(board, PawnColor.WHITE, d, pool);
+			long elapsed = Math.max(1, System.nanoTime() - start);
+
+			System.out.println("perft(" + d + ") = " + nodes + " in " + elapsed / 1_000_000 + " ms, "
+					+ (long) (nodes * 1e9 / elapsed) + " nodes/s");
+		}
+
+		pool.shutdown();
+	}
+}
@@ -1,15 +1,40 @@
 package model.board;
 
+import model.board.utils.BitBoard;
+
 public class Position {
 
-	public int x;
-	public int y;
+	private static final Position[] squares = new Position[BitBoard.SQUARES];
+
+	static {
+		for(int square = 0; square < squares.length; square++){
+			squares[square] = new Position(BitBoard.row(square), BitBoard.column(square));
+		}
+	}
+
+	public final int x;
+	public final int y;
 
-	public Position(Integer x, Integer y){
+	public Position(int x, int y){
 		this.x = x;
 		this.y = y;
 	}
 
+	/**
+	 * @param square A square index, see {@link BitBoard#square(int, int)}.
+	 * @return The shared position of the square.
+	 */
+	public static Position of(int square){
+		return squares[square];
+	}
+
+	/**
+	 * @return The square index of a valid position, see {@link BitBoard#square(int, int)}.
+	 */
+	public int getSquare(){
+		return BitBoard.square(x, y);
+	}
+
 	public boolean isValid(){
 		return x >= 0 && x < Board.SIZEX
 				&& y >= 0 && y < Board.SIZEY;
@@ -28,4 +53,9 @@ public class Position {
 		}
 		return false;
 	}
+
+	@Override
+	public int hashCode() {
+		return 31 * x + y;
+	}
 }
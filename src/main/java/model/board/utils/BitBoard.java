@@ -0,0 +1,224 @@
+package model.board.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Static helpers for the 64 bits board representation.
+ * Square index is x * 8 + y, with x the row and y the column, so each pawn set fits in one long.
+ * White pawns move toward the row 0 (right shifts), black pawns toward the row 7 (left shifts).
+ */
+public final class BitBoard {
+
+	public static final int SQUARES = 64;
+	public static final int MAX_MOVES = 48; // 16 pawns * 3 directions
+
+	public static final long ROW_0 = 0xFFL;
+	public static final long ROW_1 = 0xFFL << 8;
+	public static final long ROW_6 = 0xFFL << 48;
+	public static final long ROW_7 = 0xFFL << 56;
+	public static final long COLUMN_0 = 0x0101010101010101L;
+	public static final long COLUMN_7 = 0x8080808080808080L;
+
+	/** White home rows (6 and 7) and black home rows (0 and 1) at the beginning of the game. */
+	public static final long WHITE_START = 0xFFFFL << 48;
+	public static final long BLACK_START = 0xFFFFL;
+
+	// Per square tables, ignoring the other pawns: the square in front and the two diagonal squares.
+	private static final long[] whiteAdvances = new long[SQUARES];
+	private static final long[] blackAdvances = new long[SQUARES];
+	private static final long[] whiteAttacks = new long[SQUARES];
+	private static final long[] blackAttacks = new long[SQUARES];
+
+	// Per square tables of the squares ahead of a pawn: the whole file, and the cone of the squares
+	// an opponent pawn must stand on to ever catch or block a pawn running straight to the last row.
+	private static final long[] whiteFiles = new long[SQUARES];
+	private static final long[] blackFiles = new long[SQUARES];
+	private static final long[] whiteCones = new long[SQUARES];
+	private static final long[] blackCones = new long[SQUARES];
+
+	static {
+		for(int square = 0; square < SQUARES; square++){
+			long pawn = 1L << square;
+
+			whiteAdvances[square] = pawn >>> 8;
+			blackAdvances[square] = pawn << 8;
+			whiteAttacks[square] = ((pawn & ~COLUMN_0) >>> 9) | ((pawn & ~COLUMN_7) >>> 7);
+			blackAttacks[square] = ((pawn & ~COLUMN_0) << 7) | ((pawn & ~COLUMN_7) << 9);
+
+			for(int other = 0; other < SQUARES; other++){
+				int rows = row(other) - row(square);
+				int columns = Math.abs(column(other) - column(square));
+
+				if(rows < 0){
+					whiteFiles[square] |= columns == 0 ? 1L << other : 0;
+					whiteCones[square] |= columns <= -rows ? 1L << other : 0;
+				} else if(rows > 0){
+					blackFiles[square] |= columns == 0 ? 1L << other : 0;
+					blackCones[square] |= columns <= rows ? 1L << other : 0;
+				}
+			}
+		}
+	}
+
+	private BitBoard(){}
+
+	//********** Squares **********//
+
+	public static int square(int x, int y){
+		return x * 8 + y;
+	}
+
+	public static int row(int square){
+		return square >>> 3;
+	}
+
+	public static int column(int square){
+		return square & 7;
+	}
+
+	//********** Move encoding **********//
+
+	public static int encodeMove(int from, int to){
+		return from << 6 | to;
+	}
+
+	public static int moveFrom(int move){
+		return move >>> 6;
+	}
+
+	public static int moveTo(int move){
+		return move & 63;
+	}
+
+	//********** Targets **********//
+
+	/**
+	 * @return The square in front of a pawn of the color standing on the square, if any.
+	 */
+	public static long advance(@NotNull PawnColor color, int square){
+		return color == PawnColor.WHITE ? whiteAdvances[square] : blackAdvances[square];
+	}
+
+	/**
+	 * @return The diagonal squares in front of a pawn of the color standing on the square, the ones it can capture on.
+	 */
+	public static long attacks(@NotNull PawnColor color, int square){
+		return color == PawnColor.WHITE ? whiteAttacks[square] : blackAttacks[square];
+	}
+
+	/**
+	 * @return Every square reachable in one move by the pawn of the color standing on the square.
+	 */
+	public static long targets(@NotNull PawnColor color, int square, long whites, long blacks){
+		long own = color == PawnColor.WHITE ? whites : blacks;
+
+		return (attacks(color, square) & ~own) | (advance(color, square) & ~(whites | blacks));
+	}
+
+	/**
+	 * @param pawns The white pawns to move, a subset of whites.
+	 * @return Every square reachable in one move by one of the given pawns.
+	 */
+	public static long whiteTargets(long pawns, long whites, long blacks){
+		long empty = ~(whites | blacks);
+
+		return ((pawns >>> 8) & empty)
+				| (((pawns & ~COLUMN_0) >>> 9) & ~whites)
+				| (((pawns & ~COLUMN_7) >>> 7) & ~whites);
+	}
+
+	/**
+	 * @param pawns The black pawns to move, a subset of blacks.
+	 * @return Every square reachable in one move by one of the given pawns.
+	 */
+	public static long blackTargets(long pawns, long whites, long blacks){
+		long empty = ~(whites | blacks);
+
+		return ((pawns << 8) & empty)
+				| (((pawns & ~COLUMN_0) << 7) & ~blacks)
+				| (((pawns & ~COLUMN_7) << 9) & ~blacks);
+	}
+
+	/**
+	 * Write every legal move of a color in the buffer, encoded with {@link #encodeMove(int, int)}.
+	 * @param buffer Must hold at least {@link #MAX_MOVES} entries.
+	 * @return The number of moves written.
+	 */
+	public static int generateMoves(long whites, long blacks, @NotNull PawnColor color, int[] buffer){
+		if(color == PawnColor.WHITE){
+			long empty = ~(whites | blacks);
+			int count = fill(((whites & ~COLUMN_0) >>> 9) & ~whites, 9, buffer, 0);
+			count = fill(((whites & ~COLUMN_7) >>> 7) & ~whites, 7, buffer, count);
+			return fill((whites >>> 8) & empty, 8, buffer, count);
+		} else {
+			long empty = ~(whites | blacks);
+			int count = fill(((blacks & ~COLUMN_0) << 7) & ~blacks, -7, buffer, 0);
+			count = fill(((blacks & ~COLUMN_7) << 9) & ~blacks, -9, buffer, count);
+			return fill((blacks << 8) & empty, -8, buffer, count);
+		}
+	}
+
+	private static int fill(long targets, int delta, int[] buffer, int count){
+		while(targets != 0){
+			int to = Long.numberOfTrailingZeros(targets);
+			buffer[count++] = encodeMove(to + delta, to);
+			targets &= targets - 1;
+		}
+
+		return count;
+	}
+
+	//********** Game state **********//
+
+	/**
+	 * A pawn on this row always wins at its next move: at least one diagonal square of the last row is free of its own pawns.
+	 * @return The row before the last one for the color.
+	 */
+	public static long penultimateRow(@NotNull PawnColor color){
+		return color == PawnColor.WHITE ? ROW_1 : ROW_6;
+	}
+
+	/**
+	 * @return The number of moves the most advanced of the pawns needs to reach the last row, or {@link Integer#MAX_VALUE} without pawn.
+	 */
+	public static int distance(@NotNull PawnColor color, long pawns){
+		if(pawns == 0){
+			return Integer.MAX_VALUE;
+		}
+
+		return color == PawnColor.WHITE ? row(Long.numberOfTrailingZeros(pawns)) : 7 - row(63 - Long.numberOfLeadingZeros(pawns));
+	}
+
+	/**
+	 * An unstoppable runner has no pawn of its own color in front of it, and no opponent pawn able to catch it or block it
+	 * on its way, so it reaches the last row in as many moves as it has rows to cross.
+	 * @return The distance to the last row of the most advanced unstoppable runner of the color, or {@link Integer#MAX_VALUE} if there is none.
+	 */
+	public static int runnerDistance(@NotNull PawnColor color, long whites, long blacks){
+		if(color == PawnColor.WHITE){
+			for(long pawns = whites; pawns != 0; pawns &= pawns - 1){
+				int square = Long.numberOfTrailingZeros(pawns);
+				if((whiteCones[square] & blacks) == 0 && (whiteFiles[square] & whites) == 0){
+					return row(square);
+				}
+			}
+		} else {
+			for(long pawns = blacks; pawns != 0; pawns &= ~(1L << (63 - Long.numberOfLeadingZeros(pawns)))){
+				int square = 63 - Long.numberOfLeadingZeros(pawns);
+				if((blackCones[square] & whites) == 0 && (blackFiles[square] & blacks) == 0){
+					return 7 - row(square);
+				}
+			}
+		}
+
+		return Integer.MAX_VALUE;
+	}
+
+	public static boolean whiteHasWon(long whites, long blacks){
+		return (whites & ROW_0) != 0 || blacks == 0;
+	}
+
+	public static boolean blackHasWon(long whites, long blacks){
+		return (blacks & ROW_7) != 0 || whites == 0;
+	}
+}
@@ -0,0 +1,65 @@
+package model.board.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys used to hash positions incrementally: the hash of a board is the xor of the keys of its pawns.
+ * The keys come from a fixed seed, so a hash stays the same from one run to another.
+ */
+public final class Zobrist {
+
+	private static final long SEED = 0x42524541_4B4D4354L;
+
+	private static final long[] whiteKeys = new long[BitBoard.SQUARES];
+	private static final long[] blackKeys = new long[BitBoard.SQUARES];
+	private static final long blackToMoveKey;
+
+	static {
+		SplittableRandom random = new SplittableRandom(SEED);
+
+		for(int square = 0; square < BitBoard.SQUARES; square++){
+			whiteKeys[square] = random.nextLong();
+			blackKeys[square] = random.nextLong();
+		}
+		blackToMoveKey = random.nextLong();
+	}
+
+	private Zobrist(){}
+
+	public static long white(int square){
+		return whiteKeys[square];
+	}
+
+	public static long black(int square){
+		return blackKeys[square];
+	}
+
+	/**
+	 * @return The hash of the given pawns, computed from scratch.
+	 */
+	public static long hash(long whites, long blacks){
+		long hash = 0;
+
+		while(whites != 0){
+			hash ^= whiteKeys[Long.numberOfTrailingZeros(whites)];
+			whites &= whites - 1;
+		}
+		while(blacks != 0){
+			hash ^= blackKeys[Long.numberOfTrailingZeros(blacks)];
+			blacks &= blacks - 1;
+		}
+
+		return hash;
+	}
+
+	/**
+	 * @param boardHash The hash of the pawns.
+	 * @param playerTurn The color of the player who is able to move a pawn.
+	 * @return The hash of the position, the player to move included.
+	 */
+	public static long key(long boardHash, @NotNull PawnColor playerTurn){
+		return playerTurn == PawnColor.BLACK ? boardHash ^ blackToMoveKey : boardHash;
+	}
+}
@@ -1,4 +1,5 @@
 import model.ai.mcts.MCTS;
+import model.ai.mcts.MCTSSettings;
 import model.board.Board;
 import model.board.Move;
 import model.board.Position;
@@ -10,7 +11,9 @@ public class MainTest {
 
 	public static void main(String[] args) throws InterruptedException {
 		Board board = new Board();
-		MCTS ai = new MCTS(PawnColor.WHITE);
+		MCTSSettings settings = new MCTSSettings();
+		settings.setPondering(true);
+		MCTS ai = new MCTS(PawnColor.WHITE, settings);
 
 		while (!board.isFinished()){
 
@@ -36,5 +39,7 @@ public class MainTest {
 			Move m = new Move(new Position(sx, sy), new Position(ex, ey));
 			board.movePawn(m);
 		}
+
+		ai.stopPondering();
 	}
 }
@@ -0,0 +1,90 @@
+package model.ai.book;
+
+import model.ai.mcts.MCTS;
+import model.ai.mcts.MCTSSettings;
+import model.ai.mcts.SearchLimits;
+import model.board.Board;
+import model.board.Move;
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A book written by the builder and read back, then played from.
+ */
+class OpeningBookTest {
+
+	/**
+	 * @return A book of the first two plies: the first white move, and the first black move after each white move.
+	 */
+	@NotNull
+	private static OpeningBook book() throws IOException {
+		OpeningBookBuilder builder = new OpeningBookBuilder(2, 20, 2);
+		builder.build();
+
+		Path file = Files.createTempFile("book", ".bin");
+		file.toFile().deleteOnExit();
+		builder.write(file);
+		return OpeningBook.open(file);
+	}
+
+	@Test
+	void bookRoundTrip() throws IOException {
+		OpeningBook book = book();
+		Board start = new Board();
+		int[] moves = new int[BitBoard.MAX_MOVES];
+		int count = start.getAllPossibleMoves(PawnColor.WHITE, moves);
+
+		assertEquals(1 + count, book.size());
+		assertNotNull(book.lookup(start, PawnColor.WHITE));
+		assertTrue(book.getWinRate(start, PawnColor.WHITE) >= 0 && book.getWinRate(start, PawnColor.WHITE) <= 1);
+
+		for(int i = 0; i < count; i++){
+			Board board = new Board(start);
+			board.makeMove(moves[i]);
+			assertNotNull(book.lookup(board, PawnColor.BLACK), "No answer to " + Move.of(moves[i]));
+		}
+
+		assertNull(book.lookup(start, PawnColor.BLACK));
+		assertEquals(-1, book.getWinRate(start, PawnColor.BLACK), 0);
+	}
+
+	/**
+	 * A book move is played without any search, so the metrics of the search before it are not shown for it.
+	 */
+	@Test
+	void bookMoveClearsTheMetrics() throws IOException {
+		OpeningBook book = book();
+		SearchLimits limits = new SearchLimits();
+		limits.setPlayouts(500);
+		MCTSSettings settings = new MCTSSettings();
+		settings.setSearchLimits(limits);
+		settings.setRolloutsPerLeaf(1);
+		settings.setVerbose(false);
+		settings.setOpeningBook(book);
+		MCTS mcts = new MCTS(PawnColor.WHITE, settings);
+
+		// Two plies in, the position is out of the book.
+		Board start = new Board();
+		Board board = new Board(start, book.lookup(start, PawnColor.WHITE));
+		board = new Board(board, book.lookup(board, PawnColor.BLACK));
+		assertNull(book.lookup(board, PawnColor.WHITE));
+
+		assertNotNull(mcts.getAIMove(board));
+		assertTrue(mcts.getMetrics().getPlayouts() > 0);
+
+		assertEquals(book.lookup(start, PawnColor.WHITE), mcts.getAIMove(start));
+		assertEquals(0, mcts.getMetrics().getPlayouts());
+		assertTrue(mcts.getMetrics().getPrincipalVariation().isEmpty());
+	}
+}
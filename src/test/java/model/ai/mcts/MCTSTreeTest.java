@@ -0,0 +1,216 @@
+package model.ai.mcts;
+
+import model.ai.tablebase.Tablebase;
+import model.ai.tablebase.TablebaseGenerator;
+import model.board.Board;
+import model.board.Move;
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import model.board.utils.Zobrist;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tree reuse between turns: the subtree kept and the metrics read around it.
+ */
+class MCTSTreeTest {
+
+	private static Tablebase tablebase;
+
+	/**
+	 * @return A tablebase of up to 2 pawns per side, solved once for the whole class.
+	 */
+	@NotNull
+	private static synchronized Tablebase tablebase(){
+		if(tablebase == null){
+			try {
+				Path file = Files.createTempFile("tablebase", ".bin");
+				file.toFile().deleteOnExit();
+
+				TablebaseGenerator generator = new TablebaseGenerator(2);
+				generator.generate();
+				generator.write(file);
+				tablebase = Tablebase.open(file);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		return tablebase;
+	}
+
+	/**
+	 * Three white pawns are out of the tablebase, the black answers capturing one of them are in it.
+	 */
+	@NotNull
+	private static Board endgame(){
+		return new Board(1L << BitBoard.square(4, 3) | 1L << BitBoard.square(6, 0) | 1L << BitBoard.square(7, 7),
+				1L << BitBoard.square(3, 2) | 1L << BitBoard.square(2, 6));
+	}
+
+	@NotNull
+	private static MCTSSettings settings(){
+		MCTSSettings settings = new MCTSSettings();
+		settings.setRolloutsPerLeaf(1);
+		settings.setVerbose(false);
+		return settings;
+	}
+
+	@NotNull
+	private static SearchLimits limits(){
+		SearchLimits limits = new SearchLimits();
+		limits.setMoveTimeMillis(60_000);
+		limits.setPlayouts(3000);
+		limits.setEarlyStop(false);
+		return limits;
+	}
+
+	/**
+	 * A grandson of the root proven by the tablebase has no son. Once the opponent plays into it, it becomes the root:
+	 * the search must still give a move to play.
+	 */
+	@Test
+	void rerootedTablebaseProofIsSearched(){
+		Board start = endgame();
+		MCTSSettings settings = settings();
+		settings.setTablebase(tablebase());
+
+		int[] moves = new int[BitBoard.MAX_MOVES];
+		int[] answers = new int[BitBoard.MAX_MOVES];
+		int rerooted = 0;
+
+		for(int i = 0, count = start.getAllPossibleMoves(PawnColor.WHITE, moves); i < count; i++){
+			Board afterMove = new Board(start);
+			afterMove.makeMove(moves[i]);
+
+			for(int j = 0, answerCount = afterMove.getAllPossibleMoves(PawnColor.BLACK, answers); j < answerCount; j++){
+				Board board = new Board(afterMove);
+				board.makeMove(answers[j]);
+
+				if(board.isFinished() || tablebase().probe(board, PawnColor.WHITE) == Tablebase.UNKNOWN){
+					continue;
+				}
+
+				MCTSTree tree = new MCTSTree(start, PawnColor.WHITE, settings, new SplittableRandom(7));
+				tree.search(limits());
+
+				if(tree.reroot(board)){
+					rerooted++;
+					Move move = tree.getBestMove(limits());
+					assertNotNull(move, "No move after " + Move.of(moves[i]) + " " + Move.of(answers[j]));
+				}
+			}
+		}
+
+		assertTrue(rerooted > 0, "No proven grandson was reached");
+	}
+
+	/**
+	 * Same as with the tablebase, for a grandson proven by the snapshot the tree is warm started from.
+	 */
+	@Test
+	void rerootedSnapshotProofIsSearched() throws IOException {
+		Board start = endgame();
+		int[] moves = new int[BitBoard.MAX_MOVES];
+		int[] answers = new int[BitBoard.MAX_MOVES];
+		int rerooted = 0;
+
+		for(int i = 0, count = start.getAllPossibleMoves(PawnColor.WHITE, moves); i < count; i++){
+			Board afterMove = new Board(start);
+			afterMove.makeMove(moves[i]);
+
+			for(int j = 0, answerCount = afterMove.getAllPossibleMoves(PawnColor.BLACK, answers); j < answerCount; j++){
+				Board board = new Board(afterMove);
+				board.makeMove(answers[j]);
+
+				if(board.isFinished()){
+					continue;
+				}
+
+				Path file = Files.createTempFile("snapshot", ".bin");
+				file.toFile().deleteOnExit();
+				try(TreeSnapshotWriter writer = new TreeSnapshotWriter(file)){
+					writer.add(Zobrist.key(board.getHash(), PawnColor.WHITE), 100, 0, PawnColor.BLACK);
+				}
+				MCTSSettings settings = settings();
+				settings.setSnapshot(TreeSnapshot.open(file));
+
+				MCTSTree tree = new MCTSTree(start, PawnColor.WHITE, settings, new SplittableRandom(7));
+				tree.search(limits());
+
+				if(tree.reroot(board)){
+					rerooted++;
+					Move move = tree.getBestMove(limits());
+					assertNotNull(move, "No move after " + Move.of(moves[i]) + " " + Move.of(answers[j]));
+				}
+			}
+		}
+
+		assertTrue(rerooted > 0, "No proven grandson was reached");
+	}
+
+	/**
+	 * The metrics of a search are read against the pool it ran on: once the tree is rerooted into a new pool,
+	 * there are none until the next search, whose metrics are then the ones of the new tree.
+	 */
+	@Test
+	void metricsFollowTheReroot(){
+		Board board = new Board();
+		MCTSTree tree = new MCTSTree(board, PawnColor.WHITE, settings(), new SplittableRandom(7));
+		tree.search(limits());
+
+		List<Move> variation = tree.getMetrics().getPrincipalVariation();
+		assertTrue(variation.size() >= 2, "Too short a variation: " + variation);
+		board.makeMove(variation.get(0).pack());
+		board.makeMove(variation.get(1).pack());
+
+		assertTrue(tree.reroot(board));
+		assertSame(SearchMetrics.NONE, tree.getMetrics());
+
+		tree.search(limits());
+		SearchMetrics metrics = tree.getMetrics();
+		assertFalse(metrics.isRunning());
+		assertEquals(3000, metrics.getPlayouts());
+		assertFalse(metrics.getPrincipalVariation().isEmpty());
+	}
+
+	/**
+	 * The tries gathered while pondering the position after the move of the engine are kept by the reroot of the next move:
+	 * the new root holds more tries than the same tree searched without pondering.
+	 */
+	@Test
+	void ponderedSubtreeIsReused() throws InterruptedException {
+		Board start = new Board();
+		MCTSTree pondered = new MCTSTree(start, PawnColor.WHITE, settings(), new SplittableRandom(7));
+		MCTSTree control = new MCTSTree(start, PawnColor.WHITE, settings(), new SplittableRandom(7));
+
+		Move move = pondered.getBestMove(limits());
+		assertEquals(move, control.getBestMove(limits()));
+
+		pondered.startPondering(move, 1);
+		Thread.sleep(300);
+		pondered.stopPondering();
+
+		Board board = new Board(start, move);
+		int[] answers = new int[BitBoard.MAX_MOVES];
+		board.makeMove(answers[board.getAllPossibleMoves(PawnColor.BLACK, answers) - 1]);
+
+		assertTrue(pondered.reroot(board));
+		int reused = control.reroot(board) ? control.getRootTries() : 0;
+		assertTrue(pondered.getRootTries() > reused, pondered.getRootTries() + " tries after pondering, " + reused + " without");
+		assertNotNull(pondered.getBestMove(limits()));
+	}
+}
@@ -0,0 +1,131 @@
+package model.ai.mcts;
+
+import model.board.Board;
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each stop condition of {@link SearchLimits}, checked on a single search thread so the counts are exact.
+ */
+class SearchLimitsTest {
+
+	@NotNull
+	private static MCTSTree tree(@NotNull Board board){
+		MCTSSettings settings = new MCTSSettings();
+		settings.setRolloutsPerLeaf(1);
+		settings.setVerbose(false);
+		return new MCTSTree(board, PawnColor.WHITE, settings, new SplittableRandom(42));
+	}
+
+	@NotNull
+	private static SearchLimits limits(){
+		SearchLimits limits = new SearchLimits();
+		limits.setMoveTimeMillis(60_000);
+		limits.setEarlyStop(false);
+		limits.setCheckInterval(1);
+		return limits;
+	}
+
+	@Test
+	void playoutLimitStopsTheSearch(){
+		MCTSTree tree = tree(new Board());
+		SearchLimits limits = limits();
+		limits.setPlayouts(500);
+
+		tree.search(limits);
+
+		assertEquals(500, tree.getRootTries());
+	}
+
+	@Test
+	void nodeLimitStopsTheSearch(){
+		MCTSTree tree = tree(new Board());
+		SearchLimits limits = limits();
+		limits.setNodes(2000);
+
+		tree.search(limits);
+
+		// An iteration expands at most one node, which allocates at most one block of sons.
+		int nodes = tree.getMetrics().getNodes();
+		assertTrue(nodes >= 2000 && nodes < 2000 + BitBoard.MAX_MOVES, "Nodes: " + nodes);
+	}
+
+	@Test
+	void moveTimeStopsTheSearch(){
+		MCTSTree tree = tree(new Board());
+		SearchLimits limits = limits();
+		limits.setMoveTimeMillis(100);
+
+		long start = System.nanoTime();
+		tree.search(limits);
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertTrue(elapsedMillis >= 100 && elapsedMillis < 2000, "Elapsed: " + elapsedMillis + " ms");
+	}
+
+	@Test
+	void clockCutsTheMoveTime(){
+		SearchLimits limits = new SearchLimits();
+		limits.setMoveTimeMillis(5000);
+		assertEquals(5000, limits.getTimeBudgetMillis());
+
+		limits.setClock(10_000, 0);
+		limits.setMovesToGo(20);
+		assertEquals(500, limits.getTimeBudgetMillis());
+
+		limits.setClock(10_000, 300);
+		assertEquals(800, limits.getTimeBudgetMillis());
+
+		// Nearly out of time: the margin is kept, but some time is always given.
+		limits.setClock(40, 0);
+		assertEquals(1, limits.getTimeBudgetMillis());
+	}
+
+	@Test
+	void earlyStopEndsADecidedSearch(){
+		SearchLimits limits = limits();
+		limits.setPlayouts(2000);
+		MCTSTree full = tree(new Board());
+		full.search(limits);
+
+		limits.setEarlyStop(true);
+		MCTSTree early = tree(new Board());
+		early.search(limits);
+
+		assertEquals(2000, full.getRootTries());
+		assertTrue(early.getRootTries() < 2000, "Tries: " + early.getRootTries());
+	}
+
+	@Test
+	void proofStopsTheSearch(){
+		// The white pawn reaches the last row in one move.
+		MCTSTree tree = tree(new Board(1L << BitBoard.square(1, 3), 1L << BitBoard.square(5, 5)));
+		SearchLimits limits = limits();
+		limits.setPlayouts(100_000);
+
+		tree.search(limits);
+
+		assertTrue(tree.isSolved());
+		assertTrue(tree.getRootTries() < 100_000, "Tries: " + tree.getRootTries());
+	}
+
+	@Test
+	void limitsRejectInvalidValues(){
+		SearchLimits limits = new SearchLimits();
+
+		assertThrows(IllegalArgumentException.class, () -> limits.setMoveTimeMillis(0));
+		assertThrows(IllegalArgumentException.class, () -> limits.setPlayouts(-1));
+		assertThrows(IllegalArgumentException.class, () -> limits.setNodes(-1));
+		assertThrows(IllegalArgumentException.class, () -> limits.setClock(-1, 0));
+		assertThrows(IllegalArgumentException.class, () -> limits.setMovesToGo(0));
+		assertThrows(IllegalArgumentException.class, () -> limits.setCheckInterval(0));
+	}
+}
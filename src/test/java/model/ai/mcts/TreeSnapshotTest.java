@@ -0,0 +1,104 @@
+package model.ai.mcts;
+
+import model.board.Board;
+import model.board.Move;
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import model.board.utils.Zobrist;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The statistics of a search written to a snapshot, read back, and used to warm start a new tree.
+ */
+class TreeSnapshotTest {
+
+	private static final int PLAYOUTS = 2000;
+
+	@NotNull
+	private static MCTSSettings settings(){
+		SearchLimits limits = new SearchLimits();
+		limits.setMoveTimeMillis(60_000);
+		limits.setPlayouts(PLAYOUTS);
+		limits.setEarlyStop(false);
+
+		MCTSSettings settings = new MCTSSettings();
+		settings.setSearchLimits(limits);
+		settings.setRolloutsPerLeaf(1);
+		settings.setVerbose(false);
+		return settings;
+	}
+
+	@NotNull
+	private static Path tempFile() throws IOException {
+		Path file = Files.createTempFile("snapshot", ".bin");
+		file.toFile().deleteOnExit();
+		return file;
+	}
+
+	@Test
+	void snapshotRoundTrip() throws IOException {
+		Board start = new Board();
+		MCTS mcts = new MCTS(PawnColor.WHITE, settings());
+		assertNotNull(mcts.getAIMove(start));
+
+		Path file = tempFile();
+		int records = mcts.writeSnapshot(file, 1);
+		TreeSnapshot snapshot = TreeSnapshot.open(file);
+		assertEquals(records, snapshot.size());
+
+		int root = snapshot.find(Zobrist.key(start.getHash(), PawnColor.WHITE));
+		assertTrue(root >= 0, "No root record");
+		assertEquals(PLAYOUTS, snapshot.getTries(root));
+		assertEquals(mcts.getMetrics().getWinRate(), (double) snapshot.getWins(root, PawnColor.WHITE) / PLAYOUTS, 1e-9);
+		assertNull(snapshot.getWinner(root));
+
+		int[] moves = new int[BitBoard.MAX_MOVES];
+		for(int i = 0, count = start.getAllPossibleMoves(PawnColor.WHITE, moves); i < count; i++){
+			Board board = new Board(start);
+			board.makeMove(moves[i]);
+			int record = snapshot.find(Zobrist.key(board.getHash(), PawnColor.BLACK));
+			Move move = Move.of(moves[i]);
+
+			assertTrue(record >= 0, "No record after " + move);
+			assertEquals(mcts.getWinRate(move), (double) snapshot.getWins(record, PawnColor.WHITE) / snapshot.getTries(record), 1e-9);
+			assertEquals(1 - mcts.getWinRate(move), (double) snapshot.getWins(record, PawnColor.BLACK) / snapshot.getTries(record), 1e-9);
+		}
+
+		// A higher threshold keeps fewer positions, the root among them.
+		Path smaller = tempFile();
+		assertTrue(mcts.writeSnapshot(smaller, 50) < records);
+		assertTrue(TreeSnapshot.open(smaller).find(Zobrist.key(start.getHash(), PawnColor.WHITE)) >= 0);
+	}
+
+	/**
+	 * A new tree of the same position starts with the tries of the snapshot, and keeps them when searched.
+	 */
+	@Test
+	void snapshotWarmStartsATree() throws IOException {
+		Board start = new Board();
+		MCTS mcts = new MCTS(PawnColor.WHITE, settings());
+		assertNotNull(mcts.getAIMove(start));
+
+		Path file = tempFile();
+		mcts.writeSnapshot(file, 1);
+		MCTSSettings settings = settings();
+		settings.setSnapshot(TreeSnapshot.open(file));
+
+		MCTSTree tree = new MCTSTree(start, PawnColor.WHITE, settings, new SplittableRandom(7));
+		assertEquals(PLAYOUTS, tree.getRootTries());
+
+		assertNotNull(tree.getBestMove(settings.getSearchLimits()));
+		assertEquals(2 * PLAYOUTS, tree.getRootTries());
+	}
+}
@@ -0,0 +1,119 @@
+package model.ai.tablebase;
+
+import model.board.utils.BitBoard;
+import model.board.utils.PawnColor;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The values of a generated tablebase, read back from its file, against a plain minimax of the same positions.
+ */
+class TablebaseTest {
+
+	/** White pawns stand on the rows 1 to 7, black pawns on the rows 0 to 6: on its last row, a pawn has already won. */
+	private static final int WHITE_FIRST = 8;
+	private static final int BLACK_LAST = 55;
+
+	private final Map<Long, Boolean> solved = new HashMap<>();
+
+	@NotNull
+	private static Tablebase tablebase() throws IOException {
+		TablebaseGenerator generator = new TablebaseGenerator(2);
+		generator.generate();
+
+		Path file = Files.createTempFile("tablebase", ".bin");
+		file.toFile().deleteOnExit();
+		generator.write(file);
+		return Tablebase.open(file);
+	}
+
+	@Test
+	void tablebaseMatchesMinimax() throws IOException {
+		Tablebase tablebase = tablebase();
+
+		for(PawnColor turn : PawnColor.values()){
+			for(int black = 0; black <= BLACK_LAST; black++){
+				for(int white = WHITE_FIRST; white < 64; white++){
+					if(white == black){
+						continue;
+					}
+
+					// One pawn per side.
+					check(tablebase, 1L << white, 1L << black, turn);
+
+					// Two white pawns against one.
+					for(int second = white + 1; second < 64; second++){
+						if(second != black){
+							check(tablebase, 1L << white | 1L << second, 1L << black, turn);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private void check(@NotNull Tablebase tablebase, long whites, long blacks, @NotNull PawnColor turn){
+		int expected = wins(whites, blacks, turn) ? Tablebase.WIN : Tablebase.LOSS;
+		assertEquals(expected, tablebase.probe(whites, blacks, turn),
+				"Whites " + Long.toHexString(whites) + ", blacks " + Long.toHexString(blacks) + ", " + turn + " to move");
+	}
+
+	/**
+	 * @return True if the player to move wins: one of its moves either wins at once or leaves the opponent lost.
+	 * A player who cannot move loses.
+	 */
+	private boolean wins(long whites, long blacks, @NotNull PawnColor turn){
+		long key = key(whites, blacks, turn);
+		Boolean known = solved.get(key);
+		if(known != null){
+			return known;
+		}
+
+		int[] moves = new int[BitBoard.MAX_MOVES];
+		int count = BitBoard.generateMoves(whites, blacks, turn, moves);
+		boolean win = false;
+
+		for(int i = 0; i < count && !win; i++){
+			long from = 1L << BitBoard.moveFrom(moves[i]);
+			long to = 1L << BitBoard.moveTo(moves[i]);
+
+			if(turn == PawnColor.WHITE){
+				long nextWhites = whites ^ (from | to);
+				long nextBlacks = blacks & ~to;
+				win = BitBoard.whiteHasWon(nextWhites, nextBlacks) || !wins(nextWhites, nextBlacks, PawnColor.BLACK);
+			} else {
+				long nextWhites = whites & ~to;
+				long nextBlacks = blacks ^ (from | to);
+				win = BitBoard.blackHasWon(nextWhites, nextBlacks) || !wins(nextWhites, nextBlacks, PawnColor.WHITE);
+			}
+		}
+
+		solved.put(key, win);
+		return win;
+	}
+
+	/**
+	 * @return A key telling apart every position of at most 3 pawns: their squares, 7 bits each, and the player to move.
+	 */
+	private static long key(long whites, long blacks, @NotNull PawnColor turn){
+		long key = turn == PawnColor.WHITE ? 1 : 2;
+
+		for(long pawns = whites; pawns != 0; pawns &= pawns - 1){
+			key = key << 7 | Long.numberOfTrailingZeros(pawns);
+		}
+		key = key << 7 | 64;
+		for(long pawns = blacks; pawns != 0; pawns &= pawns - 1){
+			key = key << 7 | Long.numberOfTrailingZeros(pawns);
+		}
+
+		return key;
+	}
+}
@@ -0,0 +1,36 @@
+package model.board;
+
+import model.board.utils.PawnColor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Move generation counts from the starting board, single threaded and parallel.
+ */
+class PerftTest {
+
+	private static final long[] COUNTS = {1, 22, 484, 11132, 256036};
+
+	@Test
+	void perftCountsFromTheStart(){
+		for(int depth = 0; depth < COUNTS.length; depth++){
+			assertEquals(COUNTS[depth], Perft.perft(new Board(), PawnColor.WHITE, depth), "Depth " + depth);
+		}
+	}
+
+	@Test
+	void parallelPerftMatches(){
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			for(int depth = 0; depth < COUNTS.length; depth++){
+				assertEquals(COUNTS[depth], Perft.perft(new Board(), PawnColor.WHITE, depth, pool), "Depth " + depth);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}